@@ -1,9 +1,9 @@
 package componentes;
 
 import juego.bloques.BasicBlock;
+import juego.bloques.BlockType;
 import juego.Jugador;
 import juego.mundo.Mundo;
-import tipos.Punto;
 
 import javax.swing.*;
 import java.awt.event.MouseAdapter;
@@ -96,10 +96,8 @@ public class EditorMundo {
 
                     BasicBlock existing = mundo.getBlockAtTile(tileX, worldBlockY);
                     if (existing == null || "water".equals(existing.getId())) {
-                        // The block's logical position is determined by the tile coordinates.
-                        // The block's visual position (Punto) must be in screen-based pixel coordinates for rendering.
-                        Punto visualPosition = new Punto(tileX * size, tileY * size);
-                        mundo.setBlockAtTile(tileX, worldBlockY, new BasicBlock("stone", visualPosition));
+                        // Blocks are shared flyweights: the position comes from the tile coordinates.
+                        mundo.setBlockAtTile(tileX, worldBlockY, BasicBlock.of(BlockType.STONE));
                         mundo.markChunkDirty(tileX, worldBlockY); // Mark for lighting update
                         hoverTileX = tileX; hoverTileY = tileY; hoverHasBlock = true;
                         if (onWorldChanged != null) onWorldChanged.run();
@@ -170,39 +168,55 @@ public class EditorMundo {
     private boolean hasLineOfSight(int tileX, int tileY, int pMinX, int pMaxX, int pMinY, int pMaxY, Mundo world) {
         int originX = clamp(tileX, pMinX, pMaxX);
         int originY = clamp(tileY, pMinY, pMaxY);
-        return pathClearHV(originX, originY, tileX, tileY, world) || pathClearVH(originX, originY, tileX, tileY, world);
+        SightBox box = SightBox.copy(world, Math.min(originX, tileX), Math.min(originY, tileY),
+                Math.max(originX, tileX), Math.max(originY, tileY));
+        return pathClearHV(originX, originY, tileX, tileY, box) || pathClearVH(originX, originY, tileX, tileY, box);
     }
 
-    private boolean pathClearHV(int x0, int y0, int x1, int y1, Mundo world) {
-        return segmentClearHorizontal(x0, y0, x1, world) && segmentClearVertical(x1, y0, y1, world);
+    private boolean pathClearHV(int x0, int y0, int x1, int y1, SightBox box) {
+        return segmentClearHorizontal(x0, y0, x1, box) && segmentClearVertical(x1, y0, y1, box);
     }
 
-    private boolean pathClearVH(int x0, int y0, int x1, int y1, Mundo world) {
-        return segmentClearVertical(x0, y0, y1, world) && segmentClearHorizontal(x0, y1, x1, world);
+    private boolean pathClearVH(int x0, int y0, int x1, int y1, SightBox box) {
+        return segmentClearVertical(x0, y0, y1, box) && segmentClearHorizontal(x0, y1, x1, box);
     }
 
     private int clamp(int v, int min, int max) { return Math.min(Math.max(v, min), max); }
 
-    private boolean segmentClearHorizontal(int x0, int y, int x1, Mundo world) {
+    private boolean segmentClearHorizontal(int x0, int y, int x1, SightBox box) {
         int dir = Integer.compare(x1, x0);
         for (int x = x0 + dir; x != x1; x += dir) {
-            if (!isAir(x, y, world)) return false;
+            if (!box.isAir(x, y)) return false;
         }
         return true;
     }
 
-    private boolean segmentClearVertical(int x, int y0, int y1, Mundo world) {
+    private boolean segmentClearVertical(int x, int y0, int y1, SightBox box) {
         int dir = Integer.compare(y1, y0);
         for (int y = y0 + dir; y != y1; y += dir) {
-            if (!isAir(x, y, world)) return false;
+            if (!box.isAir(x, y)) return false;
         }
         return true;
     }
 
-    private boolean isAir(int tileX, int tileY, Mundo world) {
-        int worldY = (Mundo.WORLD_HEIGHT_BLOCKS - 1) - tileY;
-        BasicBlock b = world.getBlockAtTile(tileX, worldY);
-        return b == null || "water".equals(b.getId());
+    /**
+     * Copia de la caja de tiles (Y de pantalla) que contiene los dos caminos de línea de visión,
+     * leída del mundo una sola vez por comprobación.
+     */
+    private record SightBox(BlockType[] tiles, int minX, int maxY, int width) {
+        static SightBox copy(Mundo world, int minX, int minY, int maxX, int maxY) {
+            int width = maxX - minX + 1;
+            int height = maxY - minY + 1;
+            BlockType[] tiles = new BlockType[width * height];
+            // La fila superior de pantalla (minY) es la Y lógica más alta
+            world.copyRegion(tiles, minX, (Mundo.WORLD_HEIGHT_BLOCKS - 1) - maxY, width, height);
+            return new SightBox(tiles, minX, maxY, width);
+        }
+
+        boolean isAir(int tileX, int tileY) {
+            BlockType t = tiles[(maxY - tileY) * width + (tileX - minX)];
+            return t == null || t == BlockType.WATER;
+        }
     }
 
     // --- Getters para feedback visual ---
@@ -2,6 +2,7 @@ package componentes;
 
 import juego.Jugador;
 import juego.bloques.BasicBlock;
+import juego.bloques.PlacedBlock;
 import juego.mundo.Mundo;
 import juego.mundo.Chunk;
 import programa.Panel;
@@ -26,7 +27,7 @@ public class GameLoop implements Runnable {
     private final HudDebug hud;
     private final EditorMundo editorMundo;
     private final Renderer renderer;
-    private final List<BasicBlock> bloquesVisibles;
+    private final List<PlacedBlock> bloquesVisibles;
     private final Input input;
     private final BooleanSupplier isPaused;
     private final Runnable awaitIfPaused;
@@ -42,7 +43,7 @@ public class GameLoop implements Runnable {
                     HudDebug hud,
                     EditorMundo editorMundo,
                     Renderer renderer,
-                    List<BasicBlock> bloquesVisibles,
+                    List<PlacedBlock> bloquesVisibles,
                     Input input,
                     BooleanSupplier isPaused,
                     Runnable awaitIfPaused,
@@ -117,6 +118,8 @@ public class GameLoop implements Runnable {
                 int playerChunkX = Math.floorDiv(blockX, Chunk.CHUNK_SIZE);
                 int playerChunkY = Math.floorDiv(blockY, Chunk.CHUNK_SIZE);
                 hud.setPlayerChunk(playerChunkX, playerChunkY);
+                hud.setSaveMetrics(mundo.getChunkIOManager().getSaveMetrics());
+                hud.setCacheMetrics(mundo.getCacheMetrics());
                 hud.draw(g);
             }
             panel.present();
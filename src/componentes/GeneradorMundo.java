@@ -1,14 +1,11 @@
 package componentes;
 
-import juego.bloques.BasicBlock;
-import juego.bloques.BedrockBlock;
 import juego.bloques.BlockType;
-import juego.bloques.WaterBlock;
 import juego.mundo.Chunk;
-import tipos.Punto;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Utilidad para rellenar un chunk con el terreno del mundo.
@@ -16,6 +13,13 @@ import java.util.Map;
 public class GeneradorMundo {
 
     private static final int ALTURA_GEN_MEDIA = 55;
+    /** Altura (en bloques) del agua por encima del fondo; los huecos hasta aquí se rellenan de agua. */
+    public static final int WATER_LEVEL = 63;
+    /**
+     * Versión del terreno que produce {@link #generarChunk}: sube cada vez que cambia su salida para
+     * una misma semilla, porque los chunks guardados como diferencias se decodifican regenerándolo.
+     */
+    public static final int VERSION = 2;
 
     private static final int[] SEGMENTS = {
             Math.max(2, 1024 / 192), // Longer, smoother base segments
@@ -32,10 +36,88 @@ public class GeneradorMundo {
             256 * 0.005
     };
 
-    private static final Map<Long, double[][]> OCTAVES_BY_SEED = new HashMap<>();
+    private static final int WORLD_HEIGHT = 256;
+
+    // Se consulta desde el hilo del juego, el editor (mapa de alturas) y los hilos de IO
+    private static final Map<Long, RuidoTerreno> RUIDO_BY_SEED = new ConcurrentHashMap<>();
+
+    // Caché de columnas de correspondencia directa por chunkX: los 16 chunks verticales de una
+    // columna, el mapa de alturas y la búsqueda de spawn comparten el perfil de alturas
+    private static final int COLUMN_SLOTS = 1024;
+    // Un fallo de la caché evalúa el ruido de este bloque alineado de chunkX contiguos (256
+    // columnas) de una vez: la generación avanza por chunks vecinos y las orillas leen los lados
+    private static final int BATCH_CHUNKS = 16;
+    private static final AtomicReferenceArray<Columnas> COLUMNAS = new AtomicReferenceArray<>(COLUMN_SLOTS);
+
+    /**
+     * Terreno generado de las 16 columnas de tiles de un chunkX, antes de cualquier edición: altura
+     * del bloque de hierba (con 3 de tierra debajo y piedra más abajo) y superficie con el agua.
+     * Inmutable; se comparte entre hilos.
+     */
+    public static final class Columnas {
+        private final long seed;
+        private final int chunkX;
+        private final int[] alturas = new int[Chunk.CHUNK_SIZE];
+        private final int minAltura;
+        private final int maxAltura;
+
+        private Columnas(long seed, int chunkX, int[] tramo, int offset) {
+            this.seed = seed;
+            this.chunkX = chunkX;
+            System.arraycopy(tramo, offset, alturas, 0, Chunk.CHUNK_SIZE);
+            int min = Integer.MAX_VALUE;
+            int max = Integer.MIN_VALUE;
+            for (int h : alturas) {
+                min = Math.min(min, h);
+                max = Math.max(max, h);
+            }
+            this.minAltura = min;
+            this.maxAltura = max;
+        }
+
+        /** Y lógica del bloque de hierba en la columna local {@code x}. */
+        public int altura(int x) {
+            return alturas[x];
+        }
+
+        /** Y lógica del bloque no aire más alto de la columna local {@code x}, agua incluida. */
+        public int superficie(int x) {
+            return Math.max(alturas[x], WATER_LEVEL);
+        }
+
+        public int minAltura() {
+            return minAltura;
+        }
+
+        public int maxAltura() {
+            return maxAltura;
+        }
+    }
+
+    /**
+     * Columnas generadas del chunkX indicado, de la caché si están (ver {@link Columnas}). Si no,
+     * se calculan junto con las de su bloque alineado de 16 chunkX y se guardan todas.
+     */
+    public static Columnas columnas(long worldSeed, int chunkX) {
+        int slot = chunkX & (COLUMN_SLOTS - 1);
+        Columnas cached = COLUMNAS.get(slot);
+        if (cached != null && cached.chunkX == chunkX && cached.seed == worldSeed) return cached;
+
+        int firstChunkX = chunkX & -BATCH_CHUNKS;
+        int[] tramo = new int[BATCH_CHUNKS * Chunk.CHUNK_SIZE];
+        getRuido(worldSeed).alturas(firstChunkX * Chunk.CHUNK_SIZE, tramo, 0, tramo.length);
+        Columnas columnas = null;
+        for (int i = 0; i < BATCH_CHUNKS; i++) {
+            Columnas batched = new Columnas(worldSeed, firstChunkX + i, tramo, i * Chunk.CHUNK_SIZE);
+            // Si otro hilo las calculó a la vez el resultado es el mismo: basta con la última escritura
+            COLUMNAS.set((firstChunkX + i) & (COLUMN_SLOTS - 1), batched);
+            if (batched.chunkX == chunkX) columnas = batched;
+        }
+        return columnas;
+    }
 
-    private static double[][] getOctaves(long worldSeed) {
-        double[][] cached = OCTAVES_BY_SEED.get(worldSeed);
+    private static RuidoTerreno getRuido(long worldSeed) {
+        RuidoTerreno cached = RUIDO_BY_SEED.get(worldSeed);
         if (cached != null) return cached;
         java.util.Random rand = new java.util.Random(worldSeed);
         double[][] octaveValues = new double[SEGMENTS.length][];
@@ -49,72 +131,55 @@ public class GeneradorMundo {
             }
             octaveValues[o] = vals;
         }
-        OCTAVES_BY_SEED.put(worldSeed, octaveValues);
-        return octaveValues;
+        double base = WORLD_HEIGHT * ((double) ALTURA_GEN_MEDIA / WORLD_HEIGHT);
+        RuidoTerreno ruido = new RuidoTerreno(SEGMENTS, octaveValues, AMPLITUDES_BASE, base, WORLD_HEIGHT);
+        // Si otro hilo lo calculó a la vez es idéntico (misma semilla): quedarse con el publicado
+        RuidoTerreno previous = RUIDO_BY_SEED.putIfAbsent(worldSeed, ruido);
+        return (previous != null) ? previous : ruido;
+    }
+
+    /**
+     * Altura del terreno generado (Y lógica del bloque de hierba) en la columna global {@code worldX},
+     * antes de cualquier edición. Permite conocer la superficie sin generar ni cargar chunks.
+     */
+    public static int alturaTerreno(long worldSeed, int worldX) {
+        return columnas(worldSeed, Math.floorDiv(worldX, Chunk.CHUNK_SIZE)).altura(Math.floorMod(worldX, Chunk.CHUNK_SIZE));
     }
 
     /**
      * Rellena un chunk dado con terreno generado proceduralmente.
-     * La generación es determinista basada en la semilla del mundo y las coordenadas del chunk.
+     * La generación es determinista basada en la semilla del mundo y las coordenadas del chunk,
+     * e incluye las orillas de arena: el chunk sale completo sin depender de sus vecinos.
      *
      * Sistema de coordenadas: Y = 0 está en el fondo del mundo y crece hacia ARRIBA.
      */
     public static void generarChunk(Chunk chunk, long worldSeed) {
-        final int WATER_LEVEL = 63;          // altura (en bloques) del agua por encima del fondo
         final int ancho = Chunk.CHUNK_SIZE;  // ancho del chunk en bloques
         final int alto = Chunk.CHUNK_SIZE;   // alto del chunk en bloques
-        // Altura "global" usada solo para escalar el ruido vertical (no recorta el mundo)
-        final int worldHeight = 256;
-
-        final double size = BasicBlock.getSize();
-        double offsetX = chunk.chunkX * ancho * size;
-
-        // Perfil base de terreno (altura medida desde el fondo, Y=0 abajo)
-        double baseFrac = (double) ALTURA_GEN_MEDIA / worldHeight;
-        double base = worldHeight * baseFrac; // altura base en bloques desde el fondo
-
-        double[][] octaveValues = getOctaves(worldSeed);
+        // Perfil de alturas de la columna (compartido con los demás chunks del mismo chunkX)
+        Columnas columnas = columnas(worldSeed, chunk.chunkX);
+        int minTop = columnas.minAltura();
+        int maxTop = columnas.maxAltura();
+        int chunkBottom = chunk.chunkY * alto;
+        int chunkTopY = chunkBottom + alto - 1;
 
-        // hTop[x] = altura del terreno en bloques desde el fondo (0 abajo, worldHeight arriba)
-        int[] hTop = new int[ancho];
-        for (int x = 0; x < ancho; x++) {
-            double worldX = chunk.chunkX * ancho + x; // coordenada X global en bloques (puede ser negativa)
-            double h = base;
-            // Normalizamos sobre un ancho base, pero luego aplicamos modulo para hacerlo infinito y evitar índices negativos
-            for (int o = 0; o < SEGMENTS.length; o++) {
-                int segs = SEGMENTS[o];
-                // pos original (sin modulo) usando un ancho base 1024.0
-                double pos = (worldX / 1024.0) * segs;
-                // Evitar índices fuera de rango: hacer wrap cíclico
-                pos = pos % segs;
-                if (pos < 0) pos += segs; // garantizar [0,segs)
-                int i0 = (int) Math.floor(pos);           // 0 .. segs-1
-                int i1 = (i0 + 1);                        // 1 .. segs
-                if (i1 >= segs) i1 = 0;                   // Wrap around for seamless terrain
-                double t = pos - i0;                      // fracción local
-                double tt = t * t * (3 - 2 * t);          // suavizado hermite
-                double v0 = octaveValues[o][i0];
-                double v1 = octaveValues[o][i1]; // i1 is now wrapped, safe
-                double v = v0 + (v1 - v0) * tt;
-                double amp = AMPLITUDES_BASE[o];
-                h += v * amp;
-            }
-            if (h < 4) h = 4;
-            if (h > worldHeight - 1) h = worldHeight - 1;
-            hTop[x] = (int) Math.round(h);
+        // Atajos para chunks uniformes: todo aire (sobre terreno y agua o bajo el mundo)
+        // o todo piedra (entre bedrock y la capa de tierra de la columna más baja)
+        if (chunkTopY < 0 || chunkBottom > Math.max(maxTop, WATER_LEVEL)) {
+            chunk.fillGenerated(null);
+            return;
         }
-
-        // hTop calculado
-        // Limpiar primero el chunk (aire)
-        for (int y = 0; y < alto; y++) {
-            for (int x = 0; x < ancho; x++) {
-                chunk.setBlockGenerated(x, y, null);
-            }
+        if (chunkBottom > 0 && chunkTopY <= minTop - 4) {
+            chunk.fillGenerated(BlockType.STONE);
+            return;
         }
 
+        // Partir de un chunk vacío (aire)
+        chunk.fillGenerated(null);
+
         // Piedra profunda hasta top-4
         for (int x = 0; x < ancho; x++) {
-            int topWorldY = hTop[x];
+            int topWorldY = columnas.altura(x);
             int stoneMax = topWorldY - 4; // deja espacio para 1 grass + 3 dirt
             if (stoneMax < 0) stoneMax = -1; // si top <4 no hay piedra superficial
             for (int y = 0; y < alto; y++) {
@@ -126,31 +191,25 @@ public class GeneradorMundo {
                     continue; // capa base de bedrock
                 }
                 if (worldY <= stoneMax) {
-                    double screenY = (worldHeight - 1 - worldY) * size;
-                    Punto p = new Punto(offsetX + x * size, screenY);
-                    chunk.setBlockGenerated(x, y, new BasicBlock(BlockType.STONE, p));
+                    chunk.setBlockTypeGenerated(x, y, BlockType.STONE);
                 }
             }
         }
 
         // Capa superficial: 3 dirt y 1 grass
         for (int x = 0; x < ancho; x++) {
-            int topWorldY = hTop[x];
+            int topWorldY = columnas.altura(x);
             int topChunkY = topWorldY - chunk.chunkY * alto;
             if (topChunkY >= 0 && topChunkY < alto) {
                 // grass
-                double screenYTop = (worldHeight - 1 - topWorldY) * size;
-                Punto pTop = new Punto(offsetX + x * size, screenYTop);
-                chunk.setBlockGenerated(x, topChunkY, new BasicBlock(BlockType.GRASS_BLOCK, pTop));
+                chunk.setBlockTypeGenerated(x, topChunkY, BlockType.GRASS_BLOCK);
             }
             // dirt debajo
             for (int i = 1; i <= 3; i++) {
                 int dirtWorldY = topWorldY - i;
                 int dirtChunkY = dirtWorldY - chunk.chunkY * alto;
                 if (dirtChunkY >= 0 && dirtChunkY < alto && dirtWorldY >= 0) {
-                    double screenYDirt = (worldHeight - 1 - dirtWorldY) * size;
-                    Punto pDirt = new Punto(offsetX + x * size, screenYDirt);
-                    chunk.setBlockGenerated(x, dirtChunkY, new BasicBlock(BlockType.DIRT, pDirt));
+                    chunk.setBlockTypeGenerated(x, dirtChunkY, BlockType.DIRT);
                 }
             }
         }
@@ -163,55 +222,46 @@ public class GeneradorMundo {
             }
             if (worldY == 0) {
                 for (int x = 0; x < ancho; x++) {
-                    double screenY = (worldHeight - 1 - worldY) * size;
-                    Punto p = new Punto(offsetX + x * size, screenY);
-                    chunk.setBlockGenerated(x, y, new BedrockBlock(p));
+                    chunk.setBlockTypeGenerated(x, y, BlockType.BEDROCK);
                 }
                 continue;
             }
             if (worldY <= WATER_LEVEL) {
                 for (int x = 0; x < ancho; x++) {
-                    if (chunk.getBlock(x, y) == null) {
-                        double screenY = (worldHeight - 1 - worldY) * size;
-                        Punto p = new Punto(offsetX + x * size, screenY);
-                        chunk.setBlockGenerated(x, y, new WaterBlock(p));
+                    if (chunk.getBlockType(x, y) == null) {
+                        chunk.setBlockTypeGenerated(x, y, BlockType.WATER);
                     }
                 }
             }
         }
+
+        // Orillas: solo donde hay tierra o hierba a una tile del agua
+        if (chunkTopY >= minTop - 3 && chunkBottom <= WATER_LEVEL + 1) {
+            generarOrillas(chunk, columnas, columnas(worldSeed, chunk.chunkX - 1), columnas(worldSeed, chunk.chunkX + 1));
+        }
     }
 
-    public static void generarFeaturesAdicionales(Chunk chunk, juego.mundo.Mundo mundo) {
+    /**
+     * Orillas de arena: la tierra y la hierba con agua en alguna de sus 8 vecinas pasan a ser arena.
+     * El agua generada se deduce de las alturas (celdas libres sobre la hierba, de la Y 1 a
+     * {@link #WATER_LEVEL}), así que basta el perfil de la columna y el de las columnas de los lados,
+     * sin mirar bloques de los chunks vecinos ni esperar a que estén cargados.
+     */
+    private static void generarOrillas(Chunk chunk, Columnas columnas, Columnas izquierda, Columnas derecha) {
         final int ancho = Chunk.CHUNK_SIZE;
-        final int alto = Chunk.CHUNK_SIZE;
-        final int worldHeight = 256;
-        final double size = BasicBlock.getSize();
-
-        // Orillas de arena
-        for (int y = 0; y < alto; y++) {
-            for (int x = 0; x < ancho; x++) {
-                int worldX = chunk.chunkX * ancho + x;
-                int worldY = chunk.chunkY * alto + y;
-
-                BasicBlock b = mundo.getBlockAtTile(worldX, worldY);
-                if (b == null || "sand".equals(b.getId())) continue;
-
-                boolean nearWater = false;
-                for (int dy = -1; dy <= 1 && !nearWater; dy++) {
-                    for (int dx = -1; dx <= 1; dx++) {
-                        if (dx == 0 && dy == 0) continue;
-                        BasicBlock nb = mundo.getBlockAtTile(worldX + dx, worldY + dy);
-                        if (nb != null && "water".equals(nb.getId())) {
-                            nearWater = true;
-                        }
-                    }
-                }
-
-                if (nearWater && ("dirt".equals(b.getId()) || "grass_block".equals(b.getId()))) {
-                    double screenY = (worldHeight - 1 - worldY) * size;
-                    double screenX = worldX * size;
-                    Punto p = new Punto(screenX, screenY);
-                    chunk.setBlockGenerated(x, y, new BasicBlock(BlockType.SAND, p));
+        int chunkBottom = chunk.chunkY * Chunk.CHUNK_SIZE;
+        for (int x = 0; x < ancho; x++) {
+            int top = columnas.altura(x);
+            int topIzquierda = (x > 0) ? columnas.altura(x - 1) : izquierda.altura(ancho - 1);
+            int topDerecha = (x < ancho - 1) ? columnas.altura(x + 1) : derecha.altura(0);
+            // El agua de cada columna va de su hierba + 1 a WATER_LEVEL: la más baja de las tres es la que más agua tiene
+            int aguaDesde = Math.min(top, Math.min(topIzquierda, topDerecha)) + 1;
+            // Hierba (top) y las 3 de tierra debajo: vecinas en Y de worldY - 1 a worldY + 1
+            for (int worldY = top - 3; worldY <= top; worldY++) {
+                int y = worldY - chunkBottom;
+                if (y < 0 || y >= Chunk.CHUNK_SIZE) continue;
+                if (Math.max(aguaDesde, worldY - 1) <= Math.min(WATER_LEVEL, worldY + 1)) {
+                    chunk.setBlockTypeGenerated(x, y, BlockType.SAND);
                 }
             }
         }
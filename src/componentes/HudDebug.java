@@ -1,10 +1,14 @@
 package componentes;
 
+import juego.mundo.CacheMetrics;
+import juego.mundo.SaveMetrics;
+
 import java.awt.*;
 import java.awt.geom.AffineTransform;
 
 /**
- * HUD de depuración que muestra FPS, duración del frame y posición del jugador.
+ * HUD de depuración que muestra FPS, duración del frame, posición del jugador, estado de la cola
+ * de guardado y de la caché de chunks.
  */
 public class HudDebug {
     private long fpsWindowFrames = 0;
@@ -19,6 +23,9 @@ public class HudDebug {
     private int playerChunkX = 0;
     private int playerChunkY = 0;
 
+    private SaveMetrics saveMetrics;
+    private CacheMetrics cacheMetrics;
+
     /** Actualiza la posición a mostrar en el HUD. */
     public void setPlayerPosition(double x, double y) {
         this.playerX = x;
@@ -30,6 +37,16 @@ public class HudDebug {
         this.playerChunkY = cy;
     }
 
+    /** Métricas de guardado a mostrar (null = no mostrar la línea). */
+    public void setSaveMetrics(SaveMetrics metrics) {
+        this.saveMetrics = metrics;
+    }
+
+    /** Métricas de la caché de chunks a mostrar (null = no mostrar sus líneas). */
+    public void setCacheMetrics(CacheMetrics metrics) {
+        this.cacheMetrics = metrics;
+    }
+
     /**
      * Registra un frame completado y acumula tiempos para cálculo de FPS.
      * @param frameNs duración del frame en nanosegundos
@@ -57,9 +74,10 @@ public class HudDebug {
         g.setTransform(new AffineTransform());
         g.setFont(new Font("Consolas", Font.PLAIN, 14));
 
-        // Fondo semitransparente más alto para 4 líneas
+        // Fondo semitransparente: 5 líneas más las de métricas que haya
+        int lines = 5 + ((saveMetrics != null) ? 1 : 0) + ((cacheMetrics != null) ? 3 : 0);
         g.setColor(new Color(0,0,0,140));
-        g.fillRoundRect(8, 8, 200, 120, 8, 8);
+        g.fillRoundRect(8, 8, 200, 30 + lines * 18, 8, 8);
 
         g.setColor(Color.WHITE);
         int x = 16;
@@ -75,6 +93,22 @@ public class HudDebug {
         g.drawString(pxTxt, x, y); y += dy;
         g.drawString(pyTxt, x, y); y += dy;
         g.drawString(chunkTxt, x, y);
+        if (saveMetrics != null) {
+            y += dy;
+            g.drawString(String.format("IO: q=%d x%.1f wa=%.1f", saveMetrics.queueDepth(),
+                    saveMetrics.coalescingRatio(), saveMetrics.writeAmplification()), x, y);
+        }
+        if (cacheMetrics != null) {
+            y += dy;
+            g.drawString(String.format("Cache: %d%% hit, %d+%d", Math.round(cacheMetrics.hitRate() * 100),
+                    cacheMetrics.decodedChunks(), cacheMetrics.cachedChunks()), x, y);
+            y += dy;
+            g.drawString(String.format("Mem: %dK + %dK enc", cacheMetrics.decodedBytes() / 1024,
+                    cacheMetrics.cachedBytes() / 1024), x, y);
+            y += dy;
+            g.drawString(String.format("Off-heap: %dK / %dK", cacheMetrics.offHeapUsedBytes() / 1024,
+                    cacheMetrics.offHeapReservedBytes() / 1024), x, y);
+        }
 
         g.setTransform(old);
     }
@@ -25,28 +25,34 @@ public final class Lighting {
         }
         int alto = mundo.length;
         int ancho = mundo[0].length;
+        BlockType[] tiles = new BlockType[ancho * alto];
+        for (int y = 0; y < alto; y++) {
+            for (int x = 0; x < ancho; x++) {
+                BasicBlock b = mundo[y][x];
+                tiles[y * ancho + x] = (b == null) ? null : b.getType();
+            }
+        }
+        return compute(tiles, ancho, alto);
+    }
+
+    private static LightGrid compute(BlockType[] tiles, int ancho, int alto) {
         int[][] skylight = new int[alto][ancho];
         int[][] blockLight = new int[alto][ancho]; // permanece en 0 por ahora
         ArrayDeque<Node> queue = new ArrayDeque<>();
 
-        // Inicializar fuentes (columnas con vista directa al cielo)
+        // Inicializar fuentes (columnas con vista directa al cielo, hasta el primer bloque incluido)
         for (int x = 0; x < ancho; x++) {
-            boolean blocked = false;
-            for (int y = alto - 1; y >= 0; y--) {
-                if (blocked) break;
+            int surfaceRow = firstBlockRow(tiles, ancho, alto, x);
+            for (int y = alto - 1; y >= Math.max(0, surfaceRow); y--) {
                 skylight[y][x] = SKY_MAX;
                 queue.add(new Node(x, y, SKY_MAX));
-                if (mundo[y][x] != null) {
-                    blocked = true; // primer bloque corta la vista para el resto de la columna
-                }
             }
         }
 
         // Propagación BFS reduciendo 1 por bloque ortogonal
         while (!queue.isEmpty()) {
             Node current = queue.poll();
-            BasicBlock currentBlock = mundo[current.y][current.x];
-            if (isSolid(currentBlock)) {
+            if (isSolid(tiles[current.y * ancho + current.x])) {
                 continue; // no propagamos a través de bloques sólidos
             }
             for (int[] dir : DIRS) {
@@ -57,7 +63,7 @@ public final class Lighting {
                 if (nextLevel <= 0) continue;
                 if (nextLevel <= skylight[ny][nx]) continue;
                 skylight[ny][nx] = nextLevel;
-                if (!isSolid(mundo[ny][nx])) {
+                if (!isSolid(tiles[ny * ancho + nx])) {
                     queue.add(new Node(nx, ny, nextLevel));
                 }
             }
@@ -66,6 +72,13 @@ public final class Lighting {
         return new LightGrid(skylight, blockLight);
     }
 
+    private static int firstBlockRow(BlockType[] tiles, int ancho, int alto, int x) {
+        for (int y = alto - 1; y >= 0; y--) {
+            if (tiles[y * ancho + x] != null) return y; // primer bloque corta la vista para el resto de la columna
+        }
+        return -1;
+    }
+
     private record Node(int x, int y, int level) {}
 
     /** Contenedor inmutable de los valores de luz por celda. */
@@ -108,9 +121,7 @@ public final class Lighting {
         public boolean isEmpty() { return skylight.length == 0 || skylight[0].length == 0; }
     }
 
-    private static boolean isSolid(BasicBlock block) {
-        if (block == null) return false;
-        BlockType type = block.getType();
-        return type != BlockType.WATER;
+    private static boolean isSolid(BlockType type) {
+        return type != null && type != BlockType.WATER;
     }
 }
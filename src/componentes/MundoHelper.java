@@ -2,6 +2,7 @@ package componentes;
 
 import juego.Jugador;
 import juego.bloques.BasicBlock;
+import juego.bloques.PlacedBlock;
 import juego.mundo.Mundo;
 
 import java.awt.geom.Rectangle2D;
@@ -23,10 +24,10 @@ public final class MundoHelper {
      * @param mundo El objeto Mundo que gestiona los chunks.
      * @param jugador entidad jugador con sus bounds en píxeles
      * @param margenTiles margen adicional en tiles alrededor de los bounds
-     * @return lista de bloques próximos potencialmente colisionables
+     * @return lista de bloques próximos potencialmente colisionables, con su tile
      */
-    public static List<BasicBlock> obtenerBloquesCercanosJugador(Mundo mundo, Jugador jugador, int margenTiles){
-        List<BasicBlock> lista = new ArrayList<>();
+    public static List<PlacedBlock> obtenerBloquesCercanosJugador(Mundo mundo, Jugador jugador, int margenTiles){
+        List<PlacedBlock> lista = new ArrayList<>();
         if (mundo == null || jugador == null) return lista;
 
         Rectangle2D pb = jugador.getBounds();
@@ -38,14 +39,10 @@ public final class MundoHelper {
         int minTileYTop = (int)Math.floor(pb.getY() / size) - margenTiles;
         int maxTileYTop = (int)Math.ceil((pb.getY() + pb.getHeight()) / size) + margenTiles;
 
-        // Iterar sobre el rango y convertir Y-top a Y-mundo (0 abajo)
-        for (int tyTop = minTileYTop; tyTop <= maxTileYTop; tyTop++) {
-            int tyWorld = (Mundo.WORLD_HEIGHT_BLOCKS - 1) - tyTop;
-            for (int tx = minTileX; tx <= maxTileX; tx++) {
-                BasicBlock block = mundo.getBlockAtTile(tx, tyWorld);
-                if (block != null) lista.add(block);
-            }
-        }
+        // Recorrer la región en Y-mundo (0 abajo) y volver a Y-top para cada bloque
+        final int top = Mundo.WORLD_HEIGHT_BLOCKS - 1;
+        mundo.forEachInRegion(minTileX, top - maxTileYTop, maxTileX, top - minTileYTop,
+                (tx, ty, type) -> lista.add(new PlacedBlock(BasicBlock.of(type), tx, top - ty)));
         return lista;
     }
 
@@ -58,7 +55,7 @@ public final class MundoHelper {
      * @param anchoPx ancho del viewport en píxeles
      * @param altoPx alto del viewport en píxeles
      */
-    public static void actualizarBloquesVisibles(List<BasicBlock> destino, Mundo mundo, Camara camara, int anchoPx, int altoPx){
+    public static void actualizarBloquesVisibles(List<PlacedBlock> destino, Mundo mundo, Camara camara, int anchoPx, int altoPx){
         destino.clear();
         if (mundo == null || camara == null) return;
 
@@ -69,16 +66,10 @@ public final class MundoHelper {
         int endXTile = startXTile + (int)Math.ceil(anchoPx / size) + 1;
         int endYTile = startYTile + (int)Math.ceil(altoPx / size) + 1;
 
-        // Iterar sobre cada baldosa visible y pedir el bloque al mundo
-        for (int ty = startYTile; ty <= endYTile; ty++) {
-            for (int tx = startXTile; tx <= endXTile; tx++) {
-                // Invertir la coordenada Y de pantalla a Y de mundo
-                double worldY = (Mundo.WORLD_HEIGHT_BLOCKS - 1 - ty) * size;
-                BasicBlock block = mundo.getBlockAt(tx * size, worldY);
-                if (block != null) {
-                    destino.add(block);
-                }
-            }
-        }
+        // Invertir el rango Y de pantalla a Y de mundo (0 abajo) y recorrer la región chunk a chunk;
+        // los chunks uniformes de aire se saltan enteros
+        final int top = Mundo.WORLD_HEIGHT_BLOCKS - 1;
+        mundo.forEachInRegion(startXTile, top - endYTile, endXTile, top - startYTile,
+                (tx, ty, type) -> destino.add(new PlacedBlock(BasicBlock.of(type), tx, top - ty)));
     }
 }
@@ -6,6 +6,7 @@ import java.util.List;
 import juego.Jugador;
 import juego.bloques.BasicBlock;
 import juego.bloques.BlockRenderer;
+import juego.bloques.PlacedBlock;
 import juego.mundo.Chunk;
 
 /**
@@ -36,7 +37,7 @@ public class Renderer {
      * @param debugLight flag para activar/desactivar el modo debug de luz
      */
     public void drawGame(Graphics2D g,
-                         List<BasicBlock> bloquesVisibles,
+                         List<PlacedBlock> bloquesVisibles,
                          Jugador jugador,
                          Camara camara,
                          EditorMundo editorMundo,
@@ -51,10 +52,10 @@ public class Renderer {
         g.translate(-camara.getX(), -camara.getY());
         double size = BasicBlock.getSize();
         if (bloquesVisibles != null) {
-            for (BasicBlock b : bloquesVisibles) {
-                Rectangle r = new Rectangle((int)b.getBounds().getX(), (int)b.getBounds().getY(), (int)size, (int)size);
-                int tileX = (int)Math.floor(r.x / size);
-                int tileYTop = (int)Math.floor(r.y / size);
+            for (PlacedBlock b : bloquesVisibles) {
+                Rectangle r = new Rectangle((int)b.getX(), (int)b.getY(), (int)size, (int)size);
+                int tileX = b.tileX();
+                int tileYTop = b.tileY();
                 int arrY = (lightGrid != null) ? lightGrid.getHeight() - 1 - tileYTop : -1;
                 double brightness = 1.0;
                 int sky = 0, block = 0, eff = 15;
@@ -66,7 +67,7 @@ public class Renderer {
                     eff = lightGrid.getEffectiveLight(arrY, tileX);
                     brightness = getVisualBrightness(lightGrid, tileX, tileYTop);
                 }
-                blockRenderer.draw(g, b, brightness);
+                blockRenderer.draw(g, b.block(), b.getX(), b.getY(), brightness);
                 if (debugLight && lightGrid != null && !lightGrid.isEmpty() &&
                         arrY >= 0 && arrY < lightGrid.getHeight() &&
                         tileX >= 0 && tileX < lightGrid.getWidth()) {
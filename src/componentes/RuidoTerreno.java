@@ -0,0 +1,82 @@
+package componentes;
+
+import java.util.Arrays;
+
+/**
+ * Ruido de alturas del terreno por octavas, evaluado para un tramo de columnas de una vez.
+ *
+ * <p>Da exactamente los mismos bits que la evaluación columna a columna con {@code %} y
+ * {@code Math.floor} sobre doubles que usaba {@link GeneradorMundo}: para una columna entera
+ * {@code worldX}, la posición en la octava {@code (worldX / 1024.0) * segs} es exacta y vale
+ * {@code worldX * segs / 1024}, así que el segmento y la fracción salen de un módulo entero
+ * ({@code i0 = r >> 10}, {@code t = (r & 1023) / 1024.0}). El suavizado hermite de las 1024
+ * fracciones posibles se precalcula con la misma expresión.</p>
+ *
+ * <p>El bucle va por octavas y, dentro, por columnas sobre arrays primitivos, sin divisiones ni
+ * {@code floor}: entre columnas consecutivas la posición solo avanza {@code segs}, con un salto al
+ * completar el periodo. Inmutable; se comparte entre hilos.</p>
+ */
+final class RuidoTerreno {
+    private static final int FRACTION_BITS = 10; // ancho base de 1024 columnas por periodo de octava
+    private static final int FRACTION_MASK = (1 << FRACTION_BITS) - 1;
+    // tt = t * t * (3 - 2 * t) para t = k / 1024.0, k = 0..1023
+    private static final double[] HERMITE = new double[1 << FRACTION_BITS];
+
+    static {
+        for (int k = 0; k < HERMITE.length; k++) {
+            double t = (double) k / (1 << FRACTION_BITS);
+            HERMITE[k] = t * t * (3 - 2 * t);
+        }
+    }
+
+    private final int[] segments;
+    private final double[][] octaveValues;
+    private final double[] amplitudes;
+    private final double base;
+    private final int worldHeight;
+
+    RuidoTerreno(int[] segments, double[][] octaveValues, double[] amplitudes, double base, int worldHeight) {
+        this.segments = segments;
+        this.octaveValues = octaveValues;
+        this.amplitudes = amplitudes;
+        this.base = base;
+        this.worldHeight = worldHeight;
+    }
+
+    /**
+     * Escribe en {@code dest[offset..offset+count)} la altura generada (Y lógica del bloque de
+     * hierba) de las columnas {@code worldX0..worldX0+count-1}.
+     */
+    void alturas(int worldX0, int[] dest, int offset, int count) {
+        double[] h = new double[count];
+        sumarOctavas(worldX0, h, count);
+        for (int i = 0; i < count; i++) {
+            double v = h[i];
+            if (v < 4) v = 4;
+            if (v > worldHeight - 1) v = worldHeight - 1;
+            dest[offset + i] = (int) Math.round(v);
+        }
+    }
+
+    /** Suma de octavas sin recortar de {@code n} columnas desde {@code worldX0}, en el orden original. */
+    private void sumarOctavas(int worldX0, double[] h, int n) {
+        Arrays.fill(h, 0, n, base);
+        for (int o = 0; o < segments.length; o++) {
+            int segs = segments[o];
+            int period = segs << FRACTION_BITS;
+            double[] vals = octaveValues[o];
+            double amp = amplitudes[o];
+            // Posición en 1/1024 de segmento, en [0, period): el wrap cíclico de la octava
+            int r = (int) Math.floorMod((long) worldX0 * segs, (long) period);
+            for (int i = 0; i < n; i++) {
+                int i0 = r >>> FRACTION_BITS;
+                int i1 = (i0 + 1 == segs) ? 0 : i0 + 1;
+                double v0 = vals[i0];
+                double v = v0 + (vals[i1] - v0) * HERMITE[r & FRACTION_MASK];
+                h[i] += v * amp;
+                r += segs;
+                if (r >= period) r -= period;
+            }
+        }
+    }
+}
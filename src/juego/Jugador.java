@@ -9,6 +9,7 @@ import java.net.URL;
 import java.util.List;
 import javax.swing.*;
 import juego.bloques.BasicBlock;
+import juego.bloques.PlacedBlock;
 import tipos.Punto;
 
 /**
@@ -94,7 +95,7 @@ public class Jugador {
      * @param dt delta de tiempo en segundos
      * @param bloques lista de bloques cercanos para pruebas de colisión
      */
-    public void update(Input input, double dt, List<BasicBlock> bloques){
+    public void update(Input input, double dt, List<PlacedBlock> bloques){
         physics.update(this, input, dt, bloques);
     }
 }
@@ -1,7 +1,7 @@
 package juego;
 
-import juego.bloques.BasicBlock;
 import juego.bloques.BlockType;
+import juego.bloques.PlacedBlock;
 import java.awt.geom.Rectangle2D;
 import java.util.List;
 
@@ -40,7 +40,7 @@ public class PlayerPhysics {
     private double coyoteTimer = 0.0;
     private boolean enSuelo;
 
-    public void update(Jugador player, componentes.Input input, double dt, List<BasicBlock> bloques) {
+    public void update(Jugador player, componentes.Input input, double dt, List<PlacedBlock> bloques) {
         boolean noclip = input.isNoclipActive();
         boolean left = input.isKeyA();
         boolean right = input.isKeyD();
@@ -86,12 +86,12 @@ public class PlayerPhysics {
         player.setY(player.getY() + vy * dt);
     }
 
-    private boolean checkWater(Jugador player, List<BasicBlock> bloques) {
+    private boolean checkWater(Jugador player, List<PlacedBlock> bloques) {
         Rectangle2D pbActual = player.getBounds();
         Rectangle2D piesJugador = new Rectangle2D.Double(pbActual.getX(), pbActual.getY() + pbActual.getHeight() * 0.4,
                 pbActual.getWidth(), pbActual.getHeight() * 0.6);
         
-        for (BasicBlock b : bloques) {
+        for (PlacedBlock b : bloques) {
             if (b.getType() == BlockType.WATER) {
                 Rectangle2D wb = b.getBounds();
                 Rectangle2D wbDetect = new Rectangle2D.Double(wb.getX(), wb.getY() - WATER_DETECT_TOL, wb.getWidth(), wb.getHeight() + WATER_DETECT_TOL);
@@ -177,12 +177,12 @@ public class PlayerPhysics {
         }
     }
 
-    private void integrateAndCollide(Jugador player, double dt, List<BasicBlock> bloques) {
+    private void integrateAndCollide(Jugador player, double dt, List<PlacedBlock> bloques) {
         // X Axis
         double nuevoX = player.getX() + vx * dt;
         Rectangle2D futuroX = new Rectangle2D.Double(nuevoX, player.getY(), player.getAnchoPx(), player.getAltoPx());
         
-        for (BasicBlock b : bloques) {
+        for (PlacedBlock b : bloques) {
             if (b.getType() == BlockType.WATER) continue;
             if (futuroX.intersects(b.getBounds())) {
                 Rectangle2D br = b.getBounds();
@@ -202,7 +202,7 @@ public class PlayerPhysics {
         Rectangle2D futuroY = new Rectangle2D.Double(player.getX(), nuevoY, player.getAnchoPx(), player.getAltoPx());
         enSuelo = false;
         
-        for (BasicBlock b : bloques) {
+        for (PlacedBlock b : bloques) {
             if (b.getType() == BlockType.WATER) continue;
             if (futuroY.intersects(b.getBounds())) {
                 Rectangle2D br = b.getBounds();
@@ -220,9 +220,9 @@ public class PlayerPhysics {
         player.setY(nuevoY);
     }
 
-    private boolean isSupportedBySolid(Jugador player, List<BasicBlock> bloques) {
+    private boolean isSupportedBySolid(Jugador player, List<PlacedBlock> bloques) {
         double feet = player.getY() + player.getAltoPx();
-        for (BasicBlock b : bloques) {
+        for (PlacedBlock b : bloques) {
             if (b.getType() == BlockType.WATER) continue;
             Rectangle2D br = b.getBounds();
             boolean overlapX = (player.getX() + player.getAnchoPx()) > br.getX() + 0.001 && player.getX() < (br.getX() + br.getWidth()) - 0.001;
@@ -235,12 +235,12 @@ public class PlayerPhysics {
         return false;
     }
 
-    private void snapToGround(Jugador player, List<BasicBlock> bloques) {
+    private void snapToGround(Jugador player, List<PlacedBlock> bloques) {
         double feet = player.getY() + player.getAltoPx();
         Double bestTop = null;
         double bestAbs = GROUND_EPS + 1;
         
-        for (BasicBlock b : bloques) {
+        for (PlacedBlock b : bloques) {
             if (b.getType() == BlockType.WATER) continue;
             Rectangle2D br = b.getBounds();
             boolean overlapX = (player.getX() + player.getAnchoPx()) > br.getX() + 0.001 && player.getX() < (br.getX() + br.getWidth()) - 0.001;
@@ -1,41 +1,57 @@
 package juego.bloques;
 
 import java.awt.geom.Rectangle2D;
-import tipos.Punto;
 
 /**
  * Bloque básico del mundo.
  *
- * <p>Cada bloque tiene un identificador (ID) que determina su tipo y su dureza.
- * Su posición se almacena en píxeles del mundo.</p>
+ * <p>Cada bloque tiene un identificador (ID) que determina su tipo y su dureza. Las instancias
+ * son inmutables y se comparten: existe una sola por {@link BlockType} (ver {@link #of(BlockType)}).
+ * La posición no forma parte del bloque; la aportan los llamadores a partir de la tile.</p>
  */
 public class BasicBlock {
 
     private static final double SIZE = 64; // tamaño del sprite en píxeles
-    private final Punto p;
     private final String blockID;
     private final double dureza; // segundos necesarios de mantener click para romper
     private final BlockType type;
 
-    /**
-     * Crea un bloque de tipo dado en la posición indicada.
-     * @param blockID identificador (p.ej. "stone", "dirt")
-     * @param p posición en píxeles del mundo (esquina superior izquierda del bloque)
-     */
-    public BasicBlock(String blockID, Punto p) {
-        this(BlockType.fromId(blockID), p);
+    /** Instancias compartidas indexadas por ordinal; se crean al primer uso. */
+    private static final class Compartidos {
+        static final BasicBlock[] POR_TIPO = crear();
+
+        private static BasicBlock[] crear() {
+            BlockType[] tipos = BlockType.values();
+            BasicBlock[] bloques = new BasicBlock[tipos.length];
+            for (BlockType t : tipos) {
+                bloques[t.ordinal()] = switch (t) {
+                    case WATER -> new WaterBlock();
+                    case BEDROCK -> new BedrockBlock();
+                    default -> new BasicBlock(t);
+                };
+            }
+            return bloques;
+        }
     }
 
     /**
-     * Crea un bloque desde su tipo enum.
+     * Crea un bloque desde su tipo enum. Solo para las instancias compartidas.
      */
-    public BasicBlock(BlockType type, Punto p) {
+    protected BasicBlock(BlockType type) {
         this.type = (type != null) ? type : BlockType.UNKNOWN;
         this.blockID = this.type.getId();
-        this.p = p;
         this.dureza = this.type.getHardness();
     }
 
+    /**
+     * Devuelve la instancia compartida del tipo indicado (con su subclase: agua, bedrock...).
+     * @param type tipo de bloque; null representa aire
+     * @return bloque compartido, o null si {@code type} es null
+     */
+    public static BasicBlock of(BlockType type) {
+        return (type == null) ? null : Compartidos.POR_TIPO[type.ordinal()];
+    }
+
     /** Identificador de tipo de bloque (p.ej. "stone", "dirt"). */
     public String getId() { return blockID; }
 
@@ -51,11 +67,11 @@ public class BasicBlock {
     /** Por defecto los bloques son rompibles. */
     public boolean isBreakable() { return true; }
 
-    // --- Nuevos helpers de colisión ---
-    /** Rectángulo de colisión del bloque en píxeles del mundo. */
-    public Rectangle2D getBounds() { return new Rectangle2D.Double(p.x(), p.y(), SIZE, SIZE); }
-
-    // --- Soporte para subclases: acceso protegido a la posición ---
-    public double getX() { return p.x(); }
-    public double getY() { return p.y(); }
+    // --- Helpers de colisión ---
+    /**
+     * Rectángulo de colisión del bloque colocado en la posición indicada.
+     * @param x esquina superior izquierda en píxeles del mundo
+     * @param y esquina superior izquierda en píxeles del mundo
+     */
+    public Rectangle2D getBounds(double x, double y) { return new Rectangle2D.Double(x, y, SIZE, SIZE); }
 }
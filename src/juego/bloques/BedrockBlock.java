@@ -1,11 +1,9 @@
 package juego.bloques;
 
-import tipos.Punto;
-
 /** Bloque indestructible usado en la capa base del mundo. */
 public class BedrockBlock extends BasicBlock {
-    public BedrockBlock(Punto p) {
-        super(BlockType.BEDROCK, p);
+    BedrockBlock() {
+        super(BlockType.BEDROCK);
     }
 
     @Override
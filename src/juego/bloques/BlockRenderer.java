@@ -18,13 +18,16 @@ public class BlockRenderer {
     private static final Map<String, BufferedImage[]> tintCache = new ConcurrentHashMap<>();
     private static final double SIZE = BasicBlock.getSize();
 
-    public void draw(Graphics2D g, BasicBlock block, double brightness) {
+    /**
+     * Draws a shared block at the given world pixel position (top-left corner).
+     */
+    public void draw(Graphics2D g, BasicBlock block, double x, double y, double brightness) {
         if (g == null) return;
 
         BufferedImage img = getTintedSprite(block.getId(), brightness);
         
         AffineTransform at = g.getTransform();
-        g.translate(block.getX(), block.getY());
+        g.translate(x, y);
         g.drawImage(img, 0, 0, (int) SIZE, (int) SIZE, null);
         g.setTransform(at);
     }
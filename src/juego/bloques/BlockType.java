@@ -1,27 +1,51 @@
 package juego.bloques;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Enum que define los tipos de bloque disponibles y su dureza (segundos para romper).
+ *
+ * <p>Cada tipo tiene además un id numérico fijo que se usa en los archivos de guardado: no depende
+ * del orden de declaración, así que los tipos se pueden reordenar sin invalidar mundos. El 0 está
+ * reservado para el aire.</p>
  */
 public enum BlockType {
-    STONE("stone", 1.5),
-    DIRT("dirt", 0.8),
-    SAND("sand", 0.4),
-    GRASS_BLOCK("grass_block", 0.6),
-    WATER("water", 999.0),
-    BEDROCK("bedrock", Double.POSITIVE_INFINITY),
-    UNKNOWN("unknown", 1.0);
+    STONE("stone", 1, 1.5),
+    DIRT("dirt", 2, 0.8),
+    SAND("sand", 3, 0.4),
+    GRASS_BLOCK("grass_block", 4, 0.6),
+    WATER("water", 5, 999.0),
+    BEDROCK("bedrock", 6, Double.POSITIVE_INFINITY),
+    UNKNOWN("unknown", 255, 1.0);
+
+    /** Id numérico del aire en los archivos de guardado. */
+    public static final int AIR_NUMERIC_ID = 0;
+
+    private static final Map<String, BlockType> BY_ID = new HashMap<>();
+    private static final BlockType[] BY_NUMERIC_ID = new BlockType[256];
+
+    static {
+        for (BlockType t : values()) {
+            BY_ID.put(t.id, t);
+            BY_NUMERIC_ID[t.numericId] = t;
+        }
+    }
 
     private final String id;
+    private final int numericId;
     private final double hardness;
 
-    BlockType(String id, double hardness) {
+    BlockType(String id, int numericId, double hardness) {
         this.id = id;
+        this.numericId = numericId;
         this.hardness = hardness;
     }
 
     /** Identificador textual usado para cargar el sprite. */
     public String getId() { return id; }
+    /** Id numérico estable (1..255) usado en el formato binario de chunks. */
+    public int getNumericId() { return numericId; }
     /** Dureza (segundos de minado continuo). */
     public double getHardness() { return hardness; }
 
@@ -30,10 +54,18 @@ public enum BlockType {
      */
     public static BlockType fromId(String id) {
         if (id == null) return UNKNOWN;
-        String norm = id.toLowerCase();
-        for (BlockType t : values()) {
-            if (t.id.equals(norm)) return t;
-        }
-        return UNKNOWN;
+        BlockType t = BY_ID.get(id);
+        if (t == null) t = BY_ID.get(id.toLowerCase());
+        return (t != null) ? t : UNKNOWN;
+    }
+
+    /**
+     * Obtiene el tipo a partir de su id numérico. Devuelve null para el aire (0) y UNKNOWN para
+     * ids que no existen.
+     */
+    public static BlockType fromNumericId(int numericId) {
+        if (numericId == AIR_NUMERIC_ID) return null;
+        BlockType t = (numericId > 0 && numericId < BY_NUMERIC_ID.length) ? BY_NUMERIC_ID[numericId] : null;
+        return (t != null) ? t : UNKNOWN;
     }
 }
@@ -0,0 +1,22 @@
+package juego.bloques;
+
+import java.awt.geom.Rectangle2D;
+
+/**
+ * Bloque compartido junto con la tile que ocupa.
+ *
+ * <p>Como {@link BasicBlock} no guarda posición, las consultas espaciales (render, colisiones)
+ * trabajan con este par. {@code tileY} usa coordenadas de pantalla (top-based).</p>
+ */
+public record PlacedBlock(BasicBlock block, int tileX, int tileY) {
+
+    /** Tipo del bloque colocado. */
+    public BlockType getType() { return block.getType(); }
+
+    /** Esquina superior izquierda en píxeles del mundo. */
+    public double getX() { return tileX * BasicBlock.getSize(); }
+    public double getY() { return tileY * BasicBlock.getSize(); }
+
+    /** Rectángulo de colisión del bloque en su tile. */
+    public Rectangle2D getBounds() { return block.getBounds(getX(), getY()); }
+}
@@ -1,15 +1,13 @@
 package juego.bloques;
 
-import tipos.Punto;
-
 import java.awt.geom.Rectangle2D;
 
 /**
  * Bloque de agua: no se puede destruir con la herramienta de rotura, pero puede ser reemplazado al construir.
  */
 public class WaterBlock extends BasicBlock {
-    public WaterBlock(Punto p) {
-        super(BlockType.WATER, p);
+    WaterBlock() {
+        super(BlockType.WATER);
     }
 
     /** Agua no es rompible mediante la lógica estándar. */
@@ -26,9 +24,9 @@ public class WaterBlock extends BasicBlock {
      * Reducimos la hitbox vertical un poco (shrinkTop) para evitar poder "levitar" sobre el borde superior del agua.
      */
     @Override
-    public Rectangle2D getBounds() {
+    public Rectangle2D getBounds(double x, double y) {
         double size = BasicBlock.getSize();
         double shrinkTop = Math.max(2, size * 0.10); // recorta ~10% (mínimo 2px)
-        return new Rectangle2D.Double(getX(), getY() + shrinkTop, size, size - shrinkTop);
+        return new Rectangle2D.Double(x, y + shrinkTop, size, size - shrinkTop);
     }
 }
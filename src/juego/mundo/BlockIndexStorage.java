@@ -0,0 +1,26 @@
+package juego.mundo;
+
+/**
+ * Almacén de los índices de paleta de un chunk no uniforme (una celda por tile, valores 0..255).
+ *
+ * <p>El backend se elige al arrancar con {@code -Dmine2d.chunkStorage=offheap}; por defecto los
+ * índices viven en el heap. El resto del juego solo ve la API de {@link Chunk}.</p>
+ */
+interface BlockIndexStorage {
+    /** true si los chunks guardan sus índices fuera del heap, en slabs de memoria directa. */
+    boolean OFF_HEAP = "offheap".equalsIgnoreCase(System.getProperty("mine2d.chunkStorage", "heap"));
+
+    int get(int index);
+
+    void set(int index, int value);
+
+    void fill(int value);
+
+    /** Libera la memoria asociada. El almacén no debe usarse después. */
+    void free();
+
+    /** Reserva un almacén de {@code Chunk.CHUNK_SIZE}² celdas con el backend configurado. */
+    static BlockIndexStorage allocate() {
+        return OFF_HEAP ? OffHeapSlabPool.shared().allocate() : new HeapBlockIndexStorage();
+    }
+}
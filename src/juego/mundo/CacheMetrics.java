@@ -0,0 +1,23 @@
+package juego.mundo;
+
+/**
+ * Estado de la caché de chunks por capas (ver {@link ChunkCache}).
+ *
+ * @param decodedChunks   chunks cargados y decodificados
+ * @param decodedBytes    memoria aproximada de esos chunks (índices off-heap incluidos)
+ * @param offHeapUsedBytes     memoria directa ocupada por índices de chunks ({@code -Dmine2d.chunkStorage=offheap})
+ * @param offHeapReservedBytes memoria directa reservada por los slabs, en uso o libre
+ * @param cachedChunks    chunks descargados que siguen en memoria codificados
+ * @param cachedBytes     memoria aproximada de la capa codificada
+ * @param capacityBytes   límite de la capa codificada
+ * @param hits            cargas servidas desde memoria
+ * @param misses          cargas leídas de una región en disco
+ */
+public record CacheMetrics(int decodedChunks, long decodedBytes, long offHeapUsedBytes, long offHeapReservedBytes,
+                           int cachedChunks, long cachedBytes, long capacityBytes, long hits, long misses) {
+    /** Fracción de cargas servidas sin tocar el disco (0 si aún no hubo ninguna). */
+    public double hitRate() {
+        long total = hits + misses;
+        return (total == 0) ? 0.0 : (double) hits / total;
+    }
+}
@@ -2,14 +2,50 @@ package juego.mundo;
 
 import componentes.GeneradorMundo;
 import juego.bloques.BasicBlock;
+import juego.bloques.BlockType;
 
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Porción de 16x16 tiles del mundo.
+ *
+ * <p>Los bloques se guardan comprimidos con una paleta local: cada celda es un índice de un byte
+ * dentro de {@code palette}, cuya entrada 0 está reservada para el aire ({@code null}). Los índices
+ * viven en un {@link BlockIndexStorage}, en el heap o fuera de él según la configuración; en el
+ * segundo caso hay que llamar a {@link #release()} al descargar el chunk.
+ * {@link #getBlock(int, int)} y {@link #setBlock(int, int, BasicBlock)} siguen trabajando con
+ * {@link BasicBlock} como vista de compatibilidad, devolviendo las instancias compartidas.</p>
+ *
+ * <p>Un chunk puede estar en estado uniforme (todo aire, todo piedra...): entonces solo guarda
+ * {@code uniformType} y no reserva el array de índices hasta el primer {@code setBlock} distinto.</p>
+ *
+ * <p>Concurrencia: cada chunk tiene su propio {@link StampedLock}. Las escrituras (edición, generación,
+ * liberación) toman el cerrojo de escritura del chunk; las lecturas son optimistas y solo esperan
+ * si coinciden con una escritura en ese mismo chunk, así que el editor, el bucle de juego y los
+ * hilos de IO no se bloquean entre sí salvo al tocar el mismo chunk a la vez. Las lecturas por
+ * lotes ({@link #copyTypes}) devuelven una vista coherente de todo el área.</p>
+ */
 public class Chunk {
     public static final int CHUNK_SIZE = 16;
-    private final BasicBlock[][] blocks = new BasicBlock[CHUNK_SIZE][CHUNK_SIZE];
+    private static final int BLOCK_COUNT = CHUNK_SIZE * CHUNK_SIZE;
+    private static final int MAX_PALETTE = 256; // índices de un byte sin signo
+
+    private final StampedLock lock = new StampedLock();
+    // Estado protegido por lock
+    private BlockType[] palette = new BlockType[4];
+    private int paletteSize = 1; // palette[0] = aire
+    private BlockIndexStorage indices; // null = chunk uniforme
+    private BlockType uniformType; // tipo de todas las celdas mientras indices == null
+    private boolean released = false;
+
     public final int chunkX;
     public final int chunkY;
-    private boolean needsSaving = false;
-    private boolean featuresGenerated = false;
+    // Versión de las ediciones: el chunk necesita guardarse mientras changeCount != savedCount
+    private volatile int changeCount = 0;
+    private volatile int savedCount = 0;
+    // Etapa del pipeline de carga; la avanzan el pool de generación y ChunkManager
+    private volatile ChunkStatus status = ChunkStatus.EMPTY;
 
     public Chunk(int chunkX, int chunkY) {
         this.chunkX = chunkX;
@@ -20,50 +56,325 @@ public class Chunk {
         GeneradorMundo.generarChunk(this, seed);
     }
 
-    public BasicBlock getBlock(int x, int y) {
+    /** Tipo del bloque en la celda local, o null si es aire o está fuera del chunk. */
+    public BlockType getBlockType(int x, int y) {
         if (x < 0 || x >= CHUNK_SIZE || y < 0 || y >= CHUNK_SIZE) {
             return null;
         }
-        return blocks[y][x];
+        int index = y * CHUNK_SIZE + x;
+        long stamp = lock.tryOptimisticRead();
+        BlockType type = readType(index);
+        if (lock.validate(stamp)) {
+            return type;
+        }
+        stamp = lock.readLock();
+        try {
+            return readType(index);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private BlockType readType(int index) {
+        BlockIndexStorage idx = indices;
+        if (idx == null) {
+            return uniformType;
+        }
+        BlockType[] p = palette;
+        int i = idx.get(index);
+        // En una lectura optimista la paleta puede ser anterior al índice: el resultado se descarta al validar
+        return (i < p.length) ? p[i] : null;
+    }
+
+    /**
+     * Copia los tipos del rectángulo local [x0..x1]x[y0..y1] (inclusivo) a
+     * {@code dest[offset + (y - y0) * stride + (x - x0)]}, como una lectura coherente de todo el área.
+     * @return la versión de ediciones del chunk en el momento de la copia (ver {@link #saved(int)})
+     */
+    public int copyTypes(int x0, int y0, int x1, int y1, BlockType[] dest, int offset, int stride) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            int version = changeCount;
+            readArea(x0, y0, x1, y1, dest, offset, stride);
+            if (lock.validate(stamp)) {
+                return version;
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            int version = changeCount;
+            readArea(x0, y0, x1, y1, dest, offset, stride);
+            return version;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private void readArea(int x0, int y0, int x1, int y1, BlockType[] dest, int offset, int stride) {
+        BlockIndexStorage idx = indices;
+        BlockType uniform = uniformType;
+        BlockType[] p = palette;
+        for (int y = y0; y <= y1; y++) {
+            int row = offset + (y - y0) * stride - x0;
+            if (idx == null) {
+                Arrays.fill(dest, row + x0, row + x1 + 1, uniform);
+                continue;
+            }
+            for (int x = x0; x <= x1; x++) {
+                int i = idx.get(y * CHUNK_SIZE + x);
+                dest[row + x] = (i < p.length) ? p[i] : null;
+            }
+        }
+    }
+
+    /** Indica si todas las celdas del chunk contienen el mismo tipo. */
+    public boolean isUniform() {
+        long stamp = lock.tryOptimisticRead();
+        boolean uniform = indices == null;
+        if (lock.validate(stamp)) {
+            return uniform;
+        }
+        stamp = lock.readLock();
+        try {
+            return indices == null;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /** Tipo común de un chunk uniforme (null = aire). Solo válido si {@link #isUniform()}. */
+    public BlockType getUniformType() {
+        long stamp = lock.tryOptimisticRead();
+        BlockType type = uniformType;
+        if (lock.validate(stamp)) {
+            return type;
+        }
+        stamp = lock.readLock();
+        try {
+            return uniformType;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /** Indica si el chunk es entero de aire (comprobación atómica de uniforme + tipo). */
+    public boolean isUniformAir() {
+        long stamp = lock.tryOptimisticRead();
+        boolean air = indices == null && uniformType == null;
+        if (lock.validate(stamp)) {
+            return air;
+        }
+        stamp = lock.readLock();
+        try {
+            return indices == null && uniformType == null;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Rellena todo el chunk con un único tipo y lo deja en estado uniforme, liberando los índices.
+     * No marca el chunk como modificado (uso en generación/carga).
+     */
+    public void fillGenerated(BlockType type) {
+        long stamp = lock.writeLock();
+        try {
+            if (released) return;
+            freeIndices();
+            uniformType = type;
+            Arrays.fill(palette, null);
+            paletteSize = 1;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /** Bloque compartido de la celda local, o null si es aire. */
+    public BasicBlock getBlock(int x, int y) {
+        return BasicBlock.of(getBlockType(x, y));
     }
 
-    public void setBlock(int x, int y, BasicBlock block) {
+    /**
+     * Cambia un bloque y deja el chunk pendiente de guardar.
+     * @return false si la posición está fuera del chunk o el chunk ya se liberó (la edición se ignora)
+     */
+    public boolean setBlock(int x, int y, BasicBlock block) {
         if (x < 0 || x >= CHUNK_SIZE || y < 0 || y >= CHUNK_SIZE) {
-            return;
+            return false;
+        }
+        long stamp = lock.writeLock();
+        try {
+            if (released) return false;
+            setType(x, y, (block == null) ? null : block.getType());
+            changeCount++;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
         }
-        blocks[y][x] = block;
-        needsSaving = true;
     }
 
     public void markDirty() {
-        needsSaving = true;
+        long stamp = lock.writeLock();
+        try {
+            changeCount++;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
     }
 
     // Non-dirty setter used by world generation/loading to avoid unnecessary saves on unload
     public void setBlockGenerated(int x, int y, BasicBlock block) {
+        setBlockTypeGenerated(x, y, (block == null) ? null : block.getType());
+    }
+
+    /** Igual que {@link #setBlockGenerated(int, int, BasicBlock)} pero sin crear el bloque. */
+    public void setBlockTypeGenerated(int x, int y, BlockType type) {
         if (x < 0 || x >= CHUNK_SIZE || y < 0 || y >= CHUNK_SIZE) {
             return;
         }
-        blocks[y][x] = block;
+        long stamp = lock.writeLock();
+        try {
+            setType(x, y, type);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
     }
 
-    public BasicBlock[][] getBlocks() {
-        return blocks;
+    /**
+     * Sustituye todo el contenido por los 256 tipos dados (orden por filas, como {@link #copyTypes})
+     * sin marcar el chunk como modificado. Si todos coinciden, el chunk queda uniforme.
+     */
+    public void setTypesGenerated(BlockType[] types) {
+        long stamp = lock.writeLock();
+        try {
+            if (released) return;
+            BlockType first = types[0];
+            int i = 1;
+            while (i < BLOCK_COUNT && types[i] == first) i++;
+            freeIndices();
+            uniformType = first;
+            Arrays.fill(palette, null);
+            paletteSize = 1;
+            if (i == BLOCK_COUNT) return;
+            BlockIndexStorage expanded = BlockIndexStorage.allocate();
+            for (int c = 0; c < BLOCK_COUNT; c++) {
+                expanded.set(c, paletteIndex(types[c]));
+            }
+            indices = expanded;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
     }
 
-    public boolean needsSaving() {
-        return needsSaving;
+    // Requiere el cerrojo de escritura
+    private void setType(int x, int y, BlockType type) {
+        if (released) return; // el chunk ya se descargó: no volver a reservar memoria
+        if (indices == null) {
+            if (type == uniformType) return;
+            // Primer bloque distinto: pasar a almacenamiento completo
+            BlockIndexStorage expanded = BlockIndexStorage.allocate();
+            expanded.fill(paletteIndex(uniformType));
+            indices = expanded;
+        }
+        indices.set(y * CHUNK_SIZE + x, paletteIndex(type));
     }
 
-    public void saved() {
-        needsSaving = false;
+    /**
+     * Libera el almacenamiento de bloques (necesario con el backend off-heap). El chunk queda
+     * como aire uniforme y las escrituras posteriores se ignoran; solo debe llamarse cuando ya
+     * no está cargado en el mundo.
+     */
+    public void release() {
+        long stamp = lock.writeLock();
+        try {
+            released = true;
+            uniformType = null;
+            freeIndices();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Libera el chunk como {@link #release()} solo si no tiene ediciones posteriores a su último
+     * guardado; la comprobación y la liberación son atómicas respecto a {@link #setBlock}.
+     * @return false si hay que volver a guardarlo antes de liberarlo
+     */
+    public boolean releaseIfSaved() {
+        long stamp = lock.writeLock();
+        try {
+            if (changeCount != savedCount) return false;
+            released = true;
+            uniformType = null;
+            freeIndices();
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void freeIndices() {
+        BlockIndexStorage old = indices;
+        indices = null;
+        if (old != null) {
+            old.free();
+        }
     }
 
-    public boolean needsFeaturesGeneration() {
-        return !featuresGenerated;
+    private int paletteIndex(BlockType type) {
+        if (type == null) return 0;
+        for (int i = 1; i < paletteSize; i++) {
+            if (palette[i] == type) return i;
+        }
+        if (paletteSize == MAX_PALETTE) {
+            throw new IllegalStateException("Paleta del chunk llena (" + chunkX + "," + chunkY + ")");
+        }
+        if (paletteSize == palette.length) {
+            palette = Arrays.copyOf(palette, Math.min(MAX_PALETTE, palette.length * 2));
+        }
+        palette[paletteSize] = type;
+        return paletteSize++;
+    }
+
+    /** Memoria aproximada del chunk en bytes: objeto, paleta e índices (también si están fuera del heap). */
+    int memoryBytes() {
+        long stamp = lock.tryOptimisticRead();
+        int paletteLength = palette.length;
+        boolean hasIndices = indices != null;
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                paletteLength = palette.length;
+                hasIndices = indices != null;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        // Objeto y cerrojo ~96 B, array de paleta 16 B + 4 B por entrada, índices 1 B por celda + cabecera
+        return 96 + 16 + 4 * paletteLength + (hasIndices ? BLOCK_COUNT + 32 : 0);
+    }
+
+    public ChunkStatus getStatus() {
+        return status;
+    }
+
+    void setStatus(ChunkStatus status) {
+        this.status = status;
+    }
+
+    public boolean needsSaving() {
+        return changeCount != savedCount;
+    }
+
+    public void saved() {
+        savedCount = changeCount;
     }
 
-    public void markFeaturesGenerated() {
-        featuresGenerated = true;
+    /**
+     * Marca como guardada la versión devuelta por {@link #copyTypes}; si hubo ediciones
+     * posteriores a la copia, el chunk sigue pendiente de guardar.
+     */
+    public void saved(int version) {
+        savedCount = version;
     }
 }
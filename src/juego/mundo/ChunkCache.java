@@ -0,0 +1,78 @@
+package juego.mundo;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Capa intermedia de la caché de chunks: chunks descargados hace poco, guardados como bytes
+ * codificados ({@link ChunkCodec}) en un LRU limitado por memoria.
+ *
+ * <p>Las tres capas son exclusivas: un chunk está decodificado en el mapa de chunks cargados, aquí
+ * codificado, o solo en disco. Al descargarse un chunk ya guardado entra aquí; al volver a cargarse
+ * sale ({@link #take}) sin tocar el disco. Cuando se pasa de la capacidad se descartan los menos
+ * usados, que siguen en sus regiones.</p>
+ *
+ * <p>Cuenta aciertos (cargas servidas desde memoria) y fallos (cargas leídas de una región). Los
+ * chunks que no están en ningún sitio y se generan no cuentan.</p>
+ */
+final class ChunkCache {
+    // Entrada del mapa, clave Long y cabecera del array, aproximado para JVM de 64 bits
+    private static final int ENTRY_OVERHEAD = 64;
+
+    private final long capacityBytes;
+    private final LinkedHashMap<Long, byte[]> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long bytes;
+    private long hits;
+    private long misses;
+
+    ChunkCache(long capacityBytes) {
+        this.capacityBytes = capacityBytes;
+    }
+
+    /** Guarda los datos de un chunk descargado, expulsando los menos usados si hace falta. */
+    synchronized void put(int chunkX, int chunkY, byte[] data) {
+        long cost = data.length + ENTRY_OVERHEAD;
+        byte[] old = entries.remove(ChunkMap.key(chunkX, chunkY));
+        if (old != null) bytes -= old.length + ENTRY_OVERHEAD;
+        if (cost > capacityBytes) return;
+        entries.put(ChunkMap.key(chunkX, chunkY), data);
+        bytes += cost;
+        Iterator<Map.Entry<Long, byte[]>> eldest = entries.entrySet().iterator();
+        while (bytes > capacityBytes && eldest.hasNext()) {
+            bytes -= eldest.next().getValue().length + ENTRY_OVERHEAD;
+            eldest.remove();
+        }
+    }
+
+    /** Saca los datos del chunk de la caché (pasa a estar cargado), o null si no está. */
+    synchronized byte[] take(int chunkX, int chunkY) {
+        byte[] data = entries.remove(ChunkMap.key(chunkX, chunkY));
+        if (data == null) return null;
+        bytes -= data.length + ENTRY_OVERHEAD;
+        hits++;
+        return data;
+    }
+
+    /** Cuenta como acierto una carga servida desde memoria por otra vía (cola de guardado). */
+    synchronized void recordHit() {
+        hits++;
+    }
+
+    /** Cuenta como fallo una carga que ha tenido que leer el chunk de su región. */
+    synchronized void recordMiss() {
+        misses++;
+    }
+
+    /** Descarta la copia del chunk, si la hay (p.ej. porque se ha guardado una versión nueva). */
+    synchronized void invalidate(int chunkX, int chunkY) {
+        byte[] old = entries.remove(ChunkMap.key(chunkX, chunkY));
+        if (old != null) bytes -= old.length + ENTRY_OVERHEAD;
+    }
+
+    /** Métricas de esta capa; las de la capa decodificada las rellena {@link ChunkManager}. */
+    synchronized CacheMetrics metrics(int decodedChunks, long decodedBytes, long offHeapUsedBytes, long offHeapReservedBytes) {
+        return new CacheMetrics(decodedChunks, decodedBytes, offHeapUsedBytes, offHeapReservedBytes,
+                entries.size(), bytes, capacityBytes, hits, misses);
+    }
+}
@@ -0,0 +1,306 @@
+package juego.mundo;
+
+import componentes.GeneradorMundo;
+import juego.bloques.BlockType;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Codificación de los bloques de un chunk para los archivos de región.
+ *
+ * <p>Formato binario (versión 1):</p>
+ * <pre>
+ *   byte    MAGIC (0xC4, nunca es un dígito: distingue el formato de texto antiguo)
+ *   byte    versión
+ *   varint  tamaño de la paleta, seguido de un varint por entrada con el id numérico del tipo
+ *           (0 = aire, ver {@link BlockType#getNumericId()})
+ *   runs    pares (varint longitud, varint índice de paleta) hasta cubrir las 256 celdas
+ * </pre>
+ *
+ * <p>Las celdas van en orden por filas ({@code y * CHUNK_SIZE + x}), como en {@link Chunk#copyTypes}.
+ * {@link #decode} también acepta el formato de texto antiguo ({@code "37*stone\n..."}), así que los
+ * chunks guardados antes siguen cargando y se reescriben en binario la próxima vez que se guardan.</p>
+ *
+ * <p>Formato de diferencias (versión 2), para chunks que apenas cambian respecto al terreno generado:</p>
+ * <pre>
+ *   byte    DIFF_MAGIC (0xC6)
+ *   byte    versión
+ *   byte    versión del generador del terreno de partida ({@link GeneradorMundo#VERSION})
+ *   long    semilla del terreno de partida ({@link GeneradorMundo#generarChunk})
+ *   varint  número de celdas cambiadas, seguido por cada una de un varint con la distancia a la
+ *           celda cambiada anterior (la primera, desde 0) y un varint con el id numérico del tipo
+ * </pre>
+ *
+ * <p>Las diferencias se decodifican regenerando el chunk con la semilla guardada. Si la versión del
+ * generador guardada no es la del programa se rechazan, en vez de aplicar las ediciones sobre un
+ * terreno distinto. Necesitan las coordenadas del chunk: ver
+ * {@link #decode(byte[], BlockType[], int, int)}.</p>
+ */
+final class ChunkCodec {
+    static final int CELLS = Chunk.CHUNK_SIZE * Chunk.CHUNK_SIZE;
+    private static final byte MAGIC = (byte) 0xC4;
+    private static final int VERSION = 1;
+    private static final byte DIFF_MAGIC = (byte) 0xC6;
+    private static final int DIFF_VERSION = 2;
+
+    private ChunkCodec() {}
+
+    /** Codifica 256 tipos (null = aire) en el formato binario actual. */
+    static byte[] encode(BlockType[] types) {
+        // Primera pasada: runs de celdas iguales (la paleta solo se consulta en los cambios)
+        BlockType[] runTypes = new BlockType[CELLS];
+        int[] runLengths = new int[CELLS];
+        int runs = 0;
+        int i = 0;
+        while (i < CELLS) {
+            BlockType type = types[i];
+            int start = i;
+            while (++i < CELLS && types[i] == type) { }
+            runTypes[runs] = type;
+            runLengths[runs++] = i - start;
+        }
+
+        BlockType[] palette = new BlockType[8];
+        int paletteSize = 0;
+        int[] runIndices = new int[runs];
+        for (int r = 0; r < runs; r++) {
+            BlockType type = runTypes[r];
+            int index = 0;
+            while (index < paletteSize && palette[index] != type) index++;
+            if (index == paletteSize) {
+                if (paletteSize == palette.length) palette = Arrays.copyOf(palette, paletteSize * 2);
+                palette[paletteSize++] = type;
+            }
+            runIndices[r] = index;
+        }
+
+        // Cota superior: cabecera + paleta + dos varints de hasta 2 bytes por run
+        byte[] out = new byte[2 + 2 + paletteSize * 2 + runs * 4];
+        int pos = 0;
+        out[pos++] = MAGIC;
+        out[pos++] = VERSION;
+        pos = writeVarint(out, pos, paletteSize);
+        for (int p = 0; p < paletteSize; p++) {
+            BlockType type = palette[p];
+            pos = writeVarint(out, pos, (type == null) ? BlockType.AIR_NUMERIC_ID : type.getNumericId());
+        }
+        for (int r = 0; r < runs; r++) {
+            pos = writeVarint(out, pos, runLengths[r]);
+            pos = writeVarint(out, pos, runIndices[r]);
+        }
+        return (pos == out.length) ? out : Arrays.copyOf(out, pos);
+    }
+
+    /**
+     * Codifica {@code types} como diferencias frente al terreno generado del chunk con {@code seed},
+     * o en el formato completo si así ocupa menos.
+     */
+    static byte[] encodeAgainstGenerated(BlockType[] types, int chunkX, int chunkY, long seed) {
+        byte[] full = encode(types);
+        BlockType[] base = generatedTypes(chunkX, chunkY, seed);
+        int changed = 0;
+        for (int i = 0; i < CELLS; i++) {
+            if (types[i] != base[i]) changed++;
+        }
+        // Cota inferior: cabecera, semilla, contador y dos varints de al menos un byte por celda
+        if (3 + 8 + 1 + changed * 2 >= full.length) return full;
+
+        // Cota superior: contador y cada varint de hasta 2 bytes
+        byte[] out = new byte[3 + 8 + 2 + changed * 4];
+        int pos = 0;
+        out[pos++] = DIFF_MAGIC;
+        out[pos++] = DIFF_VERSION;
+        out[pos++] = (byte) GeneradorMundo.VERSION;
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            out[pos++] = (byte) (seed >>> shift);
+        }
+        pos = writeVarint(out, pos, changed);
+        int previous = 0;
+        for (int i = 0; i < CELLS; i++) {
+            if (types[i] == base[i]) continue;
+            BlockType type = types[i];
+            pos = writeVarint(out, pos, i - previous);
+            pos = writeVarint(out, pos, (type == null) ? BlockType.AIR_NUMERIC_ID : type.getNumericId());
+            previous = i;
+        }
+        return (pos < full.length) ? Arrays.copyOf(out, pos) : full;
+    }
+
+    /** Tipos del chunk tal como lo genera {@link GeneradorMundo#generarChunk}, sin ediciones. */
+    static BlockType[] generatedTypes(int chunkX, int chunkY, long seed) {
+        BlockType[] types = new BlockType[CELLS];
+        Chunk generated = new Chunk(chunkX, chunkY);
+        GeneradorMundo.generarChunk(generated, seed);
+        generated.copyTypes(0, 0, Chunk.CHUNK_SIZE - 1, Chunk.CHUNK_SIZE - 1, types, 0, Chunk.CHUNK_SIZE);
+        generated.release();
+        return types;
+    }
+
+    /**
+     * Decodifica el chunk {@code (chunkX, chunkY)} en {@code dest} (256 celdas), detectando el formato,
+     * diferencias incluidas.
+     * @throws IOException si los datos están vacíos, truncados o no cubren exactamente el chunk
+     */
+    static void decode(byte[] data, BlockType[] dest, int chunkX, int chunkY) throws IOException {
+        if (data != null && data.length > 0 && data[0] == DIFF_MAGIC) {
+            decodeDiff(data, dest, chunkX, chunkY);
+        } else {
+            decode(data, dest);
+        }
+    }
+
+    /**
+     * Decodifica un chunk en formato completo en {@code dest} (256 celdas), detectando el formato.
+     * @throws IOException si los datos están vacíos, truncados o no cubren exactamente el chunk
+     */
+    static void decode(byte[] data, BlockType[] dest) throws IOException {
+        if (data == null || data.length == 0) {
+            throw new IOException("Datos de chunk vacíos");
+        }
+        if (data[0] == DIFF_MAGIC) {
+            throw new IOException("Diferencias de chunk sin coordenadas");
+        }
+        if (data[0] == MAGIC) {
+            decodeBinary(data, dest);
+        } else {
+            decodeLegacyText(data, dest);
+        }
+    }
+
+    private static void decodeBinary(byte[] data, BlockType[] dest) throws IOException {
+        Reader in = new Reader(data, 1);
+        int version = data.length > 1 ? data[in.pos++] & 0xFF : -1;
+        if (version != VERSION) {
+            throw new IOException("Versión de chunk no soportada: " + version);
+        }
+        int paletteSize = in.varint();
+        if (paletteSize <= 0 || paletteSize > CELLS) {
+            throw new IOException("Tamaño de paleta inválido: " + paletteSize);
+        }
+        BlockType[] palette = new BlockType[paletteSize];
+        for (int p = 0; p < paletteSize; p++) {
+            palette[p] = BlockType.fromNumericId(in.varint());
+        }
+        int index = 0;
+        while (index < CELLS) {
+            int run = in.varint();
+            int p = in.varint();
+            if (run <= 0 || index + run > CELLS) {
+                throw new IOException("Chunk con más bloques de los esperados (" + CELLS + ")");
+            }
+            if (p >= paletteSize) {
+                throw new IOException("Índice de paleta fuera de rango: " + p);
+            }
+            Arrays.fill(dest, index, index + run, palette[p]);
+            index += run;
+        }
+        if (in.pos != data.length) {
+            throw new IOException("Datos sobrantes tras el chunk (" + (data.length - in.pos) + " bytes)");
+        }
+    }
+
+    private static void decodeDiff(byte[] data, BlockType[] dest, int chunkX, int chunkY) throws IOException {
+        int version = (data.length > 1) ? data[1] & 0xFF : -1;
+        if (version != DIFF_VERSION) {
+            throw new IOException("Versión de diferencias de chunk no soportada: " + version);
+        }
+        if (data.length < 3 + 8 + 1) {
+            throw new IOException("Chunk truncado");
+        }
+        int generatorVersion = data[2] & 0xFF;
+        if (generatorVersion != GeneradorMundo.VERSION) {
+            throw new IOException("Diferencias contra otra versión del generador: " + generatorVersion);
+        }
+        long seed = 0;
+        for (int i = 3; i < 3 + 8; i++) {
+            seed = (seed << 8) | (data[i] & 0xFF);
+        }
+        Reader in = new Reader(data, 3 + 8);
+        int changed = in.varint();
+        if (changed < 0 || changed > CELLS) {
+            throw new IOException("Número de diferencias inválido: " + changed);
+        }
+        BlockType[] base = generatedTypes(chunkX, chunkY, seed);
+        int index = 0;
+        for (int c = 0; c < changed; c++) {
+            int gap = in.varint();
+            if (gap < 0 || (c > 0 && gap == 0) || gap >= CELLS - index) {
+                throw new IOException("Celda de diferencia fuera de rango: " + (index + gap));
+            }
+            index += gap;
+            base[index] = BlockType.fromNumericId(in.varint());
+        }
+        if (in.pos != data.length) {
+            throw new IOException("Datos sobrantes tras el chunk (" + (data.length - in.pos) + " bytes)");
+        }
+        System.arraycopy(base, 0, dest, 0, CELLS);
+    }
+
+    /** Formato antiguo: líneas "n*id" en texto UTF-8. */
+    private static void decodeLegacyText(byte[] data, BlockType[] dest) throws IOException {
+        String text = new String(data, StandardCharsets.UTF_8);
+        int index = 0;
+        int lineStart = 0;
+        while (lineStart < text.length()) {
+            int lineEnd = text.indexOf('\n', lineStart);
+            if (lineEnd < 0) lineEnd = text.length();
+            String run = text.substring(lineStart, lineEnd).trim();
+            lineStart = lineEnd + 1;
+            if (run.isEmpty()) {
+                continue;
+            }
+            int separator = run.indexOf('*');
+            if (separator <= 0 || separator == run.length() - 1) {
+                throw new IOException("Formato de run inválido: " + run);
+            }
+            int count;
+            try {
+                count = Integer.parseInt(run, 0, separator, 10);
+            } catch (NumberFormatException e) {
+                throw new IOException("Conteo inválido en run: " + run, e);
+            }
+            if (count < 0 || index + count > CELLS) {
+                throw new IOException("Chunk con más bloques de los esperados (" + CELLS + ")");
+            }
+            String blockId = run.substring(separator + 1);
+            BlockType type = "air".equals(blockId) ? null : BlockType.fromId(blockId);
+            Arrays.fill(dest, index, index + count, type);
+            index += count;
+        }
+        if (index != CELLS) {
+            throw new IOException("Chunk incompleto. Esperados " + CELLS + " bloques, obtenidos " + index);
+        }
+    }
+
+    private static int writeVarint(byte[] out, int pos, int value) {
+        while ((value & ~0x7F) != 0) {
+            out[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out[pos++] = (byte) value;
+        return pos;
+    }
+
+    private static final class Reader {
+        private final byte[] data;
+        int pos;
+
+        Reader(byte[] data, int pos) {
+            this.data = data;
+            this.pos = pos;
+        }
+
+        int varint() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                if (pos >= data.length) throw new IOException("Chunk truncado");
+                int b = data[pos++];
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return value;
+            }
+            throw new IOException("Varint demasiado largo");
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package juego.mundo;
+
+import componentes.GeneradorMundo;
+import juego.bloques.BlockType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresión de los datos de chunk al escribirlos en las regiones.
+ *
+ * <p>El modo se elige con {@code -Dmine2d.compression} ({@link Mode}). Los datos comprimidos van en
+ * un sobre {@code [MAGIC][modo][deflate sin cabecera]}; los que no empiezan por {@code MAGIC}
+ * (modo {@link Mode#STORED}, chunks que comprimidos no ocupaban menos, o guardados antes de existir
+ * la compresión) se leen tal cual, así que cambiar de modo no obliga a convertir el mundo: cada
+ * chunk se reescribe en el modo actual la próxima vez que se guarda.</p>
+ *
+ * <p>El modo {@link Mode#DICTIONARY} usa un diccionario predefinido ({@link Deflater#setDictionary})
+ * entrenado con los chunks de un mundo generado de muestra: los datos de un chunk son tan cortos
+ * que sin él deflate apenas encuentra repeticiones. El diccionario se guarda en
+ * {@code chunks.dict} junto al mundo la primera vez que se usa y desde entonces se lee de ahí,
+ * de modo que los chunks ya escritos siguen siendo legibles aunque cambie el generador.</p>
+ *
+ * <p>Deflaters e inflaters se reutilizan por hilo. Los métodos se pueden llamar desde cualquier hilo.</p>
+ */
+final class ChunkCompressor {
+    /** Modos de compresión de los datos de chunk. */
+    enum Mode {
+        /** Sin comprimir: el formato de {@link ChunkCodec} tal cual. */
+        STORED,
+        /** Deflate con {@link Deflater#BEST_SPEED}. */
+        FAST,
+        /** Deflate con {@link Deflater#BEST_COMPRESSION}. */
+        MAX,
+        /** Deflate con diccionario predefinido. */
+        DICTIONARY;
+
+        /** Modo configurado con {@code -Dmine2d.compression}, {@link #STORED} por defecto. */
+        static Mode configured() {
+            String name = System.getProperty("mine2d.compression", "stored");
+            try {
+                return valueOf(name.trim().toUpperCase(java.util.Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                System.err.println("[SAVE] Compresión desconocida '" + name + "', se usa STORED");
+                return STORED;
+            }
+        }
+    }
+
+    private static final byte MAGIC = (byte) 0xC5; // distinto de ChunkCodec (0xC4) y de los dígitos del formato de texto
+    private static final String DICTIONARY_FILE = "chunks.dict";
+    private static final int DICTIONARY_BYTES = 4096;
+    // Mundo de muestra para entrenar el diccionario: superficie y subsuelo alrededor del origen
+    private static final long SAMPLE_SEED = 12345L;
+    private static final int SAMPLE_HALF_WIDTH = 32;
+    private static final int SAMPLE_HEIGHT = 16;
+
+    private final Mode mode;
+    private final Path worldDir;
+    private volatile byte[] dictionary;
+
+    private final ThreadLocal<Deflater> deflater;
+    private final ThreadLocal<Inflater> inflater = ThreadLocal.withInitial(() -> new Inflater(true));
+    private final ThreadLocal<byte[]> buffer = ThreadLocal.withInitial(() -> new byte[1024]);
+
+    ChunkCompressor(Mode mode, Path worldDir) {
+        this.mode = mode;
+        this.worldDir = worldDir;
+        int level = switch (mode) {
+            case FAST -> Deflater.BEST_SPEED;
+            case MAX -> Deflater.BEST_COMPRESSION;
+            default -> Deflater.DEFAULT_COMPRESSION;
+        };
+        this.deflater = ThreadLocal.withInitial(() -> new Deflater(level, true));
+    }
+
+    Mode mode() {
+        return mode;
+    }
+
+    /**
+     * Comprime los datos de un chunk con el modo configurado. Si el sobre comprimido no ocupa menos
+     * que los datos, devuelve los datos tal cual ({@link #decompress} los deja pasar).
+     */
+    byte[] compress(byte[] data) throws IOException {
+        if (mode == Mode.STORED) return data;
+        Deflater d = deflater.get();
+        d.reset();
+        if (mode == Mode.DICTIONARY) d.setDictionary(dictionary());
+        d.setInput(data);
+        d.finish();
+        byte[] out = buffer.get();
+        int length = 2;
+        while (true) {
+            length += d.deflate(out, length, out.length - length);
+            if (d.finished()) break;
+            out = Arrays.copyOf(out, out.length * 2);
+            buffer.set(out);
+        }
+        if (length >= data.length) return data;
+        out[0] = MAGIC;
+        out[1] = (byte) mode.ordinal();
+        return Arrays.copyOf(out, length);
+    }
+
+    /**
+     * Devuelve los datos sin comprimir, detectando el modo con el que se escribieron.
+     * @throws IOException si el sobre está dañado o falta el diccionario del mundo
+     */
+    byte[] decompress(byte[] data) throws IOException {
+        if (data == null || data.length == 0 || data[0] != MAGIC) return data;
+        if (data.length < 2 || data[1] <= Mode.STORED.ordinal() || data[1] >= Mode.values().length) {
+            throw new IOException("Modo de compresión de chunk desconocido");
+        }
+        Inflater inf = inflater.get();
+        inf.reset();
+        // Sin cabecera zlib el inflater no pide el diccionario: se da según el modo del sobre
+        if (data[1] == Mode.DICTIONARY.ordinal()) inf.setDictionary(dictionary());
+        // Inflater sin cabecera necesita un byte extra al final de la entrada
+        byte[] input = Arrays.copyOfRange(data, 2, data.length + 1);
+        inf.setInput(input);
+        byte[] out = buffer.get();
+        int length = 0;
+        try {
+            while (!inf.finished()) {
+                int n = inf.inflate(out, length, out.length - length);
+                if (n == 0 && (inf.needsInput() || inf.needsDictionary())) {
+                    throw new IOException("Chunk comprimido truncado");
+                }
+                length += n;
+                if (length == out.length) {
+                    out = Arrays.copyOf(out, out.length * 2);
+                    buffer.set(out);
+                }
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Chunk comprimido dañado: " + e.getMessage(), e);
+        }
+        return Arrays.copyOf(out, length);
+    }
+
+    /**
+     * Diccionario del mundo: el de {@code chunks.dict} si existe o, si no, uno entrenado ahora y
+     * guardado ahí para las siguientes sesiones.
+     */
+    private byte[] dictionary() throws IOException {
+        byte[] dict = dictionary;
+        if (dict != null) return dict;
+        synchronized (this) {
+            if (dictionary == null) {
+                Path path = worldDir.resolve(DICTIONARY_FILE);
+                if (Files.exists(path)) {
+                    dictionary = Files.readAllBytes(path);
+                } else {
+                    byte[] trained = trainDictionary();
+                    Files.createDirectories(worldDir);
+                    Path tmp = worldDir.resolve(DICTIONARY_FILE + ".tmp");
+                    Files.write(tmp, trained);
+                    Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    dictionary = trained;
+                }
+            }
+            return dictionary;
+        }
+    }
+
+    /**
+     * Entrena un diccionario con los chunks de un mundo generado de muestra: los datos codificados
+     * más frecuentes, del menos al más frecuente (deflate alcanza antes el final del diccionario),
+     * hasta {@value #DICTIONARY_BYTES} bytes.
+     */
+    static byte[] trainDictionary() {
+        Map<ByteBuffer, Integer> counts = new HashMap<>();
+        BlockType[] types = new BlockType[ChunkCodec.CELLS];
+        for (int cx = -SAMPLE_HALF_WIDTH; cx < SAMPLE_HALF_WIDTH; cx++) {
+            for (int cy = 0; cy < SAMPLE_HEIGHT; cy++) {
+                Chunk chunk = new Chunk(cx, cy);
+                GeneradorMundo.generarChunk(chunk, SAMPLE_SEED);
+                chunk.copyTypes(0, 0, Chunk.CHUNK_SIZE - 1, Chunk.CHUNK_SIZE - 1, types, 0, Chunk.CHUNK_SIZE);
+                chunk.release();
+                counts.merge(ByteBuffer.wrap(ChunkCodec.encode(types)), 1, Integer::sum);
+            }
+        }
+        List<Map.Entry<ByteBuffer, Integer>> byFrequency = new ArrayList<>(counts.entrySet());
+        byFrequency.sort(Map.Entry.<ByteBuffer, Integer>comparingByValue().reversed());
+        List<byte[]> chosen = new ArrayList<>();
+        int size = 0;
+        for (Map.Entry<ByteBuffer, Integer> entry : byFrequency) {
+            byte[] payload = entry.getKey().array();
+            if (size + payload.length > DICTIONARY_BYTES) continue;
+            chosen.add(payload);
+            size += payload.length;
+        }
+        byte[] dict = new byte[size];
+        int pos = size;
+        for (byte[] payload : chosen) {
+            pos -= payload.length;
+            System.arraycopy(payload, 0, dict, pos, payload.length);
+        }
+        return dict;
+    }
+}
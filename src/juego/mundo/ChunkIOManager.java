@@ -1,92 +1,478 @@
 package juego.mundo;
 
-import juego.bloques.BasicBlock;
-import juego.bloques.BedrockBlock;
-import juego.bloques.WaterBlock;
+import juego.bloques.BlockType;
 import tipos.Punto;
 
 import java.io.*;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
-import java.util.zip.ZipOutputStream;
+import java.util.zip.ZipFile;
 
+/**
+ * Persistencia del mundo en disco.
+ *
+ * <p>El mundo vive en el directorio {@code world/}: {@code player.dat} y {@code meta.dat} como
+ * archivos sueltos y los chunks en archivos de región ({@code region/r.X.Y.mrg}, ver
+ * {@link RegionFile}), de modo que guardar o cargar un chunk solo toca su región. Los guardados
+ * antiguos en un único {@code world.wgz} se importan una vez al abrir el mundo; el archivo
+ * original se conserva sin cambios.</p>
+ *
+ * <p>Al abrir el mundo se lista una vez el directorio de regiones. Con ese índice en memoria (y la
+ * cabecera de cada región, que ya hace de índice persistente de sus chunks) cargar un chunk es un
+ * acceso directo, y pedir uno que nunca se guardó se resuelve sin tocar el disco ni esperar a la
+ * cola de IO.</p>
+ *
+ * <p>Los guardados de chunks pasan por una {@link SaveQueue}: se fusionan por coordenada y se
+ * escriben por lotes cuando la cola llega a {@code -Dmine2d.saveBatchSize} chunks (32 por defecto)
+ * o cuando pasan {@code -Dmine2d.saveDelayMs} ms (250) desde el primer guardado pendiente.</p>
+ *
+ * <p>Solo se guardan los chunks editados: el terreno sin tocar se vuelve a generar con la semilla.
+ * Al escribirse en su región, cada chunk se guarda como diferencias frente al terreno generado
+ * cuando así ocupa menos que completo (ver {@link ChunkCodec}). {@link WorldPregenerator} guarda en
+ * cambio chunks completos, para que cargarlos no tenga que generar nada.</p>
+ *
+ * <p>Los datos de cada chunk se comprimen al escribirse en su región según
+ * {@code -Dmine2d.compression} (ver {@link ChunkCompressor}); la cola y la caché guardan los datos
+ * sin comprimir.</p>
+ *
+ * <p>Los chunks descargados (ya guardados) se quedan además en una caché LRU de bytes codificados
+ * ({@link ChunkCache}, {@code -Dmine2d.chunkCacheKb}, 8192 KB por defecto): volver a cargarlos no
+ * toca el disco. Sus métricas, junto con las de los chunks cargados, salen en {@link CacheMetrics}.</p>
+ *
+ * <p>Cada edición de bloque se añade además a un diario ({@link EditJournal}, {@code edits.log}):
+ * cuesta microsegundos y sobrevive a un cierre inesperado. Cada {@code -Dmine2d.checkpointMs} ms
+ * (5000) el hilo coordinador hace un checkpoint: aparta el diario, guarda los chunks que tocó y lo
+ * descarta cuando están escritos. {@link #loadWorld} reaplica lo que quede de una sesión cortada
+ * ({@link #recoverJournal}); hasta entonces los checkpoints solo escriben la cola y no tocan el
+ * diario, para no descartar ediciones que aún no se han reaplicado.</p>
+ *
+ * <p>Concurrencia: las lecturas de chunks van a su propio pool de hilos ({@code -Dmine2d.ioThreads},
+ * 4 por defecto) y corren en paralelo entre sí. Cada lote de guardado se reparte por región en un
+ * segundo pool del mismo tamaño: regiones distintas se escriben a la vez y las escrituras de una
+ * misma región se serializan en su {@link RegionFile}. Una lectura nunca hace cola detrás de los
+ * guardados; como mucho espera a que termine la escritura de un chunk de su misma región. Un chunk guardado se lee de la {@link SaveQueue} hasta que su
+ * escritura termina, así que cada chunk ve siempre su último guardado. La importación, el índice de
+ * regiones, los metadatos y el disparo de los lotes siguen en un único hilo coordinador.</p>
+ */
 public class ChunkIOManager {
-    private static final String WORLD_FILE = "world.wgz";
+    private static final String WORLD_DIR = "world";
+    private static final String REGION_DIR = "region";
+    private static final String LEGACY_WORLD_FILE = "world.wgz";
     private static final String PLAYER_FILE = "player.dat";
     private static final String META_FILE = "meta.dat";
-    private static final String CHUNKS_DIR = "chunks/";
+    private static final String LEGACY_CHUNKS_DIR = "chunks/";
+    private static final int SAVE_BATCH_SIZE = Integer.getInteger("mine2d.saveBatchSize", 32);
+    private static final long SAVE_DELAY_MS = Integer.getInteger("mine2d.saveDelayMs", 250);
+    private static final int IO_THREADS = Math.max(1, Integer.getInteger("mine2d.ioThreads", 4));
+    private static final long CHECKPOINT_MS = Math.max(1, Integer.getInteger("mine2d.checkpointMs", 5000));
+    private static final long CHUNK_CACHE_BYTES = Integer.getInteger("mine2d.chunkCacheKb", 8192) * 1024L;
+    private static final long SHUTDOWN_TIMEOUT_MS = Integer.getInteger("mine2d.shutdownTimeoutMs", 10_000);
 
-    private final ExecutorService ioExecutor;
+    /** Avance de un guardado del mundo. Se llama desde los hilos de IO. */
+    @FunctionalInterface
+    public interface SaveProgress {
+        void update(int savedChunks, int totalChunks);
+    }
+
+    private final ScheduledExecutorService ioExecutor;
+    private final ExecutorService readPool;
+    private final ExecutorService writePool;
+    private final SaveQueue saveQueue = new SaveQueue();
+    private final ChunkCache cache = new ChunkCache(CHUNK_CACHE_BYTES);
+    private final Path worldDir;
+    private final long seed;
+    private final boolean storeDiffs;
+    private final EditJournal journal;
+    private final ChunkCompressor compressor;
+    // Chunks cargados del mundo, para los checkpoints del diario (ver startCheckpoints)
+    private volatile ChunkMap<Chunk> loadedChunks = new ChunkMap<>();
+    // El diario de la sesión anterior ya se reaplicó: los checkpoints pueden apartarlo y descartarlo. Solo hilo coordinador
+    private boolean journalRecovered = false;
+    // Regiones abiertas; se crean bajo su propio cerrojo, se usan desde cualquier hilo de IO
+    private final ChunkMap<RegionFile> openRegions = new ChunkMap<>();
+    // Regiones que existen (o van a existir) en disco; se consulta desde cualquier hilo
+    private final ChunkMap<Path> regionIndex = new ChunkMap<>();
+    private final CompletableFuture<Void> regionIndexReady = new CompletableFuture<>();
+
+    /** @param seed semilla del mundo: los chunks se guardan como diferencias frente a su terreno generado */
+    public ChunkIOManager(long seed) {
+        this(Paths.get(WORLD_DIR), seed, true);
+    }
 
-    private static final class ArchiveEntries {
-        final Map<String, byte[]> metadataEntries = new LinkedHashMap<>();
-        final Map<String, byte[]> chunkEntries = new LinkedHashMap<>();
+    /** @param storeDiffs false para guardar siempre los chunks completos (ver {@link WorldPregenerator}) */
+    ChunkIOManager(long seed, boolean storeDiffs) {
+        this(Paths.get(WORLD_DIR), seed, storeDiffs);
     }
 
-    public ChunkIOManager() {
-        this.ioExecutor = Executors.newSingleThreadExecutor(r -> {
+    ChunkIOManager(Path worldDir, long seed, boolean storeDiffs) {
+        this.worldDir = worldDir;
+        this.seed = seed;
+        this.storeDiffs = storeDiffs;
+        this.journal = new EditJournal(worldDir);
+        this.compressor = new ChunkCompressor(ChunkCompressor.Mode.configured(), worldDir);
+        this.ioExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
             Thread t = new Thread(r, "chunk-io-thread");
             t.setDaemon(true);
             return t;
         });
+        this.readPool = Executors.newFixedThreadPool(IO_THREADS, daemonThreads("chunk-io-read-"));
+        this.writePool = Executors.newFixedThreadPool(IO_THREADS, daemonThreads("chunk-io-write-"));
+        // Primeras tareas del hilo de IO: las cargas posteriores ya ven el mundo importado e indexado
+        ioExecutor.execute(this::migrateLegacyArchive);
+        ioExecutor.execute(this::indexRegions);
     }
 
-    public void saveWorld(Mundo mundo, Punto playerPosition) {
-        CompletableFuture.runAsync(() -> saveWorldInternal(mundo, playerPosition), ioExecutor)
-                .exceptionally(ex -> {
-                    System.err.println("[SAVE] Error guardando mundo: " + ex.getMessage());
-                    return null;
-                })
-                .join();
+    /**
+     * Borra el mundo guardado (directorio de regiones y, si existe, el {@code world.wgz} antiguo)
+     * para empezar una partida nueva.
+     * @return false si algo no se pudo borrar
+     */
+    public static boolean deleteSavedWorld() {
+        boolean ok = true;
+        Path dir = Paths.get(WORLD_DIR);
+        if (Files.exists(dir)) {
+            try (Stream<Path> paths = Files.walk(dir)) {
+                for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                    ok &= path.toFile().delete();
+                }
+            } catch (IOException e) {
+                ok = false;
+            }
+        }
+        File legacy = new File(LEGACY_WORLD_FILE);
+        if (legacy.exists()) {
+            ok &= legacy.delete();
+        }
+        return ok;
     }
 
-    private void saveWorldInternal(Mundo mundo, Punto playerPosition) {
-        ArchiveEntries archive = readArchiveEntries();
-        Map<String, byte[]> metadataEntries = archive.metadataEntries;
-        Map<String, byte[]> chunkEntries = archive.chunkEntries;
-        if (playerPosition != null) {
-            metadataEntries.put(PLAYER_FILE, serializePlayerPosition(playerPosition));
-        }
-        metadataEntries.put(META_FILE, serializeSeed(mundo.getSeed()));
+    /**
+     * Guarda el mundo sin bloquear al llamante. Las instantáneas de los chunks (y la posición del
+     * jugador) se toman aquí, en el hilo que llama, así que lo guardado es el mundo tal como estaba
+     * al pedirlo aunque se siga editando. El resto (metadatos, escritura y checkpoint del diario)
+     * corre en los hilos de IO.
+     * @param progress avance por chunks escritos (puede ser null); se llama desde los hilos de IO
+     * @return futuro que se completa al terminar, o excepcionalmente si fallan los metadatos o algún chunk
+     */
+    public CompletableFuture<Void> saveWorld(Mundo mundo, Punto playerPosition, SaveProgress progress) {
+        // Pasan por la cola para que una instantánea anterior aún pendiente no pise a estas
         for (Chunk chunk : mundo.getLoadedChunks().values()) {
             if (chunk.needsSaving()) {
-                chunkEntries.put(entryName(chunk.chunkX, chunk.chunkY), serializeChunk(chunk));
-                chunk.saved();
+                enqueueSave(chunk);
             }
         }
-        writeArchive(metadataEntries, chunkEntries);
+        long worldSeed = mundo.getSeed();
+        return CompletableFuture.runAsync(() -> saveWorldInternal(worldSeed, playerPosition, progress), ioExecutor);
     }
 
+    private void saveWorldInternal(long worldSeed, Punto playerPosition, SaveProgress progress) {
+        try {
+            if (playerPosition != null) {
+                writeMetadata(PLAYER_FILE, serializePlayerPosition(playerPosition));
+            }
+            writeMetadata(META_FILE, serializeSeed(worldSeed));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (!checkpoint(progress)) {
+            throw new UncheckedIOException(new IOException("No se pudieron escribir todos los chunks"));
+        }
+    }
+
+    /** Escribe los metadatos del mundo y todo lo pendiente, sin chunks cargados ni jugador. */
+    CompletableFuture<Void> saveWorld(SaveProgress progress) {
+        return CompletableFuture.runAsync(() -> saveWorldInternal(seed, null, progress), ioExecutor);
+    }
+
+    /** Indica si el chunk ya está guardado (en disco o en la cola). Espera al índice de regiones. */
+    boolean isStored(int chunkX, int chunkY) {
+        if (saveQueue.pendingData(chunkX, chunkY) != null) return true;
+        regionIndexReady.join();
+        try {
+            RegionFile region = existingRegion(chunkX, chunkY);
+            return region != null && region.contains(chunkX, chunkY);
+        } catch (IOException e) {
+            System.err.println("[LOAD] Error abriendo región del chunk (" + chunkX + "," + chunkY + "): " + e.getMessage());
+            return true; // ante la duda, no pisarlo
+        }
+    }
+
+    /** Encola una instantánea del chunk; se escribirá con el siguiente lote. */
     public void saveChunk(Chunk chunk) {
         if (chunk == null) return;
-        byte[] serialized = serializeChunk(chunk);
-        final String entry = entryName(chunk.chunkX, chunk.chunkY);
-        chunk.saved();
-        CompletableFuture.runAsync(() -> writeSingleChunk(entry, serialized), ioExecutor)
-                .exceptionally(ex -> {
-                    System.err.println("[SAVE] Error escribiendo chunk (" + chunk.chunkX + "," + chunk.chunkY + "): " + ex.getMessage());
-                    return null;
+        int depth = enqueueSave(chunk);
+        if (depth >= SAVE_BATCH_SIZE) {
+            ioExecutor.execute(() -> flushPending(null));
+        } else if (depth == 1) {
+            ioExecutor.schedule(() -> flushPending(null), SAVE_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /** Registra una edición de bloque en el diario (tile con Y lógica, null = aire). */
+    void logEdit(int tileX, int tileY, BlockType type) {
+        try {
+            journal.append(tileX, tileY, type);
+        } catch (IOException e) {
+            System.err.println("[SAVE] Error escribiendo el diario de ediciones: " + e.getMessage());
+        }
+    }
+
+    /** Empieza los checkpoints periódicos del diario sobre los chunks cargados del mundo. */
+    void startCheckpoints(ChunkMap<Chunk> chunks) {
+        this.loadedChunks = chunks;
+        ioExecutor.scheduleWithFixedDelay(() -> {
+            if (journal.pendingRecords() > 0) checkpoint(null);
+        }, CHECKPOINT_MS, CHECKPOINT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Escribe la cola y lleva a los archivos de región las ediciones del diario: lo aparta, guarda
+     * los chunks cargados que tocó (los descargados ya pasaron por la cola) y lo descarta cuando
+     * todo está escrito. Solo hilo coordinador.
+     * @return false si algo no se pudo escribir
+     */
+    private boolean checkpoint(SaveProgress progress) {
+        try {
+            boolean journaled = journalRecovered && journal.rotate();
+            if (journaled) {
+                ChunkMap<Chunk> chunks = loadedChunks;
+                for (EditJournal.Edit edit : journal.readCheckpoint()) {
+                    Chunk chunk = chunks.get(Math.floorDiv(edit.tileX(), Chunk.CHUNK_SIZE), Math.floorDiv(edit.tileY(), Chunk.CHUNK_SIZE));
+                    if (chunk != null && chunk.needsSaving()) {
+                        enqueueSave(chunk);
+                    }
+                }
+            }
+            if (!flushPending(progress)) return false;
+            if (journaled) journal.commit();
+            return true;
+        } catch (IOException e) {
+            System.err.println("[SAVE] Error en el checkpoint del diario: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Reaplica el diario que dejó una sesión cortada directamente sobre los datos guardados (o sobre
+     * el terreno generado con la semilla del mundo, para chunks que nunca se guardaron) y lo
+     * descarta. A partir de aquí los checkpoints gestionan el diario. Debe llamarse antes de cargar
+     * chunks y, si el mundo ya tiene semilla, solo cuando coincide con la de este gestor.
+     */
+    CompletableFuture<Void> recoverJournal() {
+        return CompletableFuture.runAsync(this::replayJournal, ioExecutor);
+    }
+
+    /** Ver {@link #recoverJournal}. Solo hilo coordinador. */
+    private void replayJournal() {
+        try {
+            if (!journal.rotate()) {
+                journalRecovered = true;
+                return;
+            }
+            List<EditJournal.Edit> edits = journal.readCheckpoint();
+            ChunkMap<ReplayedChunk> touched = new ChunkMap<>();
+            for (EditJournal.Edit edit : edits) {
+                int chunkX = Math.floorDiv(edit.tileX(), Chunk.CHUNK_SIZE);
+                int chunkY = Math.floorDiv(edit.tileY(), Chunk.CHUNK_SIZE);
+                ReplayedChunk chunk = touched.get(chunkX, chunkY);
+                if (chunk == null) {
+                    chunk = new ReplayedChunk(chunkX, chunkY, storedOrGeneratedTypes(chunkX, chunkY));
+                    touched.put(chunkX, chunkY, chunk);
+                }
+                int localX = Math.floorMod(edit.tileX(), Chunk.CHUNK_SIZE);
+                int localY = Math.floorMod(edit.tileY(), Chunk.CHUNK_SIZE);
+                chunk.types()[localY * Chunk.CHUNK_SIZE + localX] = edit.type();
+            }
+            for (ReplayedChunk chunk : touched.values()) {
+                reserveRegion(chunk.chunkX(), chunk.chunkY());
+                saveQueue.offer(new SaveQueue.PendingSave(chunk.chunkX(), chunk.chunkY(), serializeTypes(chunk.types()), null, 0));
+            }
+            if (flushPending(null)) {
+                journal.commit();
+                journalRecovered = true;
+                System.out.println("[LOAD] Reaplicadas " + edits.size() + " ediciones del diario en " + touched.size() + " chunks");
+            }
+        } catch (IOException e) {
+            System.err.println("[LOAD] Error reaplicando el diario de ediciones: " + e.getMessage());
+        }
+    }
+
+    private record ReplayedChunk(int chunkX, int chunkY, BlockType[] types) {}
+
+    private BlockType[] storedOrGeneratedTypes(int chunkX, int chunkY) throws IOException {
+        byte[] data = saveQueue.pendingData(chunkX, chunkY);
+        if (data == null) {
+            RegionFile region = existingRegion(chunkX, chunkY);
+            data = (region != null) ? compressor.decompress(region.read(chunkX, chunkY)) : null;
+        }
+        if (data == null) return ChunkCodec.generatedTypes(chunkX, chunkY, seed);
+        BlockType[] types = new BlockType[ChunkCodec.CELLS];
+        ChunkCodec.decode(data, types, chunkX, chunkY);
+        return types;
+    }
+
+    /** Métricas de la cola de guardado (profundidad, fusión y amplificación de escritura). */
+    public SaveMetrics getSaveMetrics() {
+        return saveQueue.metrics();
+    }
+
+    /**
+     * Guarda en la caché codificada un chunk que se va a descargar. Los chunks con cambios sin
+     * guardar no entran: la caché nunca tiene datos más nuevos que la cola o el disco.
+     */
+    void cacheUnloaded(Chunk chunk) {
+        if (chunk.needsSaving()) return;
+        BlockType[] snapshot = new BlockType[ChunkCodec.CELLS];
+        chunk.copyTypes(0, 0, Chunk.CHUNK_SIZE - 1, Chunk.CHUNK_SIZE - 1, snapshot, 0, Chunk.CHUNK_SIZE);
+        cache.put(chunk.chunkX, chunk.chunkY, serializeTypes(snapshot));
+    }
+
+    /** Métricas de la caché; la capa decodificada (chunks cargados) la aporta el llamante. */
+    CacheMetrics cacheMetrics(int decodedChunks, long decodedBytes, long offHeapUsedBytes, long offHeapReservedBytes) {
+        return cache.metrics(decodedChunks, decodedBytes, offHeapUsedBytes, offHeapReservedBytes);
+    }
+
+    private int enqueueSave(Chunk chunk) {
+        // Copia coherente del chunk: las ediciones posteriores lo dejan pendiente de guardar otra vez
+        BlockType[] snapshot = new BlockType[Chunk.CHUNK_SIZE * Chunk.CHUNK_SIZE];
+        int version = chunk.copyTypes(0, 0, Chunk.CHUNK_SIZE - 1, Chunk.CHUNK_SIZE - 1, snapshot, 0, Chunk.CHUNK_SIZE);
+        byte[] serialized = serializeTypes(snapshot);
+        chunk.saved(version);
+        reserveRegion(chunk.chunkX, chunk.chunkY);
+        cache.invalidate(chunk.chunkX, chunk.chunkY);
+        return saveQueue.offer(new SaveQueue.PendingSave(chunk.chunkX, chunk.chunkY, serialized, chunk, version));
+    }
+
+    /**
+     * Escribe de una vez todo lo pendiente, una tarea por región en el pool, y espera a que acaben.
+     * Solo hilo coordinador, así que nunca hay dos lotes a la vez. Los chunks que fallan vuelven a
+     * la cola y se reintentan en el siguiente lote.
+     * @param progress avance por chunks escritos, o null
+     * @return false si algún chunk no se pudo escribir
+     */
+    private boolean flushPending(SaveProgress progress) {
+        List<SaveQueue.PendingSave> batch = saveQueue.drain();
+        int total = batch.size();
+        if (progress != null) progress.update(0, total);
+        if (batch.isEmpty()) return true;
+        ChunkMap<List<SaveQueue.PendingSave>> byRegion = new ChunkMap<>();
+        for (SaveQueue.PendingSave save : batch) {
+            int regionX = RegionFile.regionCoord(save.chunkX());
+            int regionY = RegionFile.regionCoord(save.chunkY());
+            List<SaveQueue.PendingSave> group = byRegion.get(regionX, regionY);
+            if (group == null) {
+                group = new ArrayList<>();
+                byRegion.put(regionX, regionY, group);
+            }
+            group.add(save);
+        }
+        List<CompletableFuture<RegionWrite>> writes = new ArrayList<>(byRegion.size());
+        AtomicInteger done = new AtomicInteger();
+        for (List<SaveQueue.PendingSave> group : byRegion.values()) {
+            CompletableFuture<RegionWrite> write = CompletableFuture.supplyAsync(() -> writeRegion(group), writePool);
+            if (progress != null) {
+                write = write.thenApply(result -> {
+                    progress.update(done.addAndGet(group.size()), total);
+                    return result;
                 });
+            }
+            writes.add(write);
+        }
+        int written = 0;
+        long payload = 0;
+        long disk = 0;
+        boolean failed = false;
+        for (CompletableFuture<RegionWrite> write : writes) {
+            RegionWrite result = write.join();
+            written += result.written();
+            payload += result.payloadBytes();
+            disk += result.diskBytes();
+            failed |= result.failed();
+        }
+        saveQueue.recordBatch(written, payload, disk);
+        if (failed && !ioExecutor.isShutdown()) {
+            ioExecutor.schedule(() -> flushPending(null), SAVE_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+        return !failed;
+    }
+
+    /** Resultado de escribir los chunks de un lote que caen en una misma región. */
+    private record RegionWrite(int written, long payloadBytes, long diskBytes, boolean failed) {}
+
+    /** Escribe en orden los guardados de una región y la sincroniza. Se ejecuta en el pool. */
+    private RegionWrite writeRegion(List<SaveQueue.PendingSave> group) {
+        int written = 0;
+        long payload = 0;
+        long disk = 0;
+        boolean failed = false;
+        RegionFile region = null;
+        for (SaveQueue.PendingSave save : group) {
+            try {
+                region = region(save.chunkX(), save.chunkY());
+                byte[] stored = compressor.compress(againstGenerated(save));
+                disk += region.write(save.chunkX(), save.chunkY(), stored);
+                payload += stored.length;
+                written++;
+                saveQueue.written(save);
+            } catch (IOException e) {
+                System.err.println("[SAVE] Error escribiendo chunk (" + save.chunkX() + "," + save.chunkY() + "): " + e.getMessage());
+                saveQueue.retry(save);
+                failed = true;
+            }
+        }
+        if (region != null) {
+            try {
+                region.sync();
+            } catch (IOException e) {
+                System.err.println("[SAVE] Error sincronizando región: " + e.getMessage());
+            }
+        }
+        return new RegionWrite(written, payload, disk, failed);
     }
 
-    private void writeSingleChunk(String entryName, byte[] serializedChunk) {
-        ArchiveEntries archive = readArchiveEntries();
-        archive.chunkEntries.put(entryName, serializedChunk);
-        writeArchive(archive.metadataEntries, archive.chunkEntries);
+    /** Datos del guardado como diferencias frente al terreno generado, si así ocupan menos. */
+    private byte[] againstGenerated(SaveQueue.PendingSave save) throws IOException {
+        if (!storeDiffs) return save.data();
+        BlockType[] types = new BlockType[ChunkCodec.CELLS];
+        ChunkCodec.decode(save.data(), types);
+        return ChunkCodec.encodeAgainstGenerated(types, save.chunkX(), save.chunkY(), seed);
     }
 
     public CompletableFuture<Chunk> loadChunkAsync(int chunkX, int chunkY) {
-        return CompletableFuture.supplyAsync(() -> loadChunkInternal(chunkX, chunkY), ioExecutor);
+        byte[] pending = saveQueue.pendingData(chunkX, chunkY);
+        if (pending != null) {
+            // Aún en la cola de guardado: es la versión más reciente
+            cache.recordHit();
+            return CompletableFuture.completedFuture(decodeChunk(chunkX, chunkY, pending));
+        }
+        byte[] cached = cache.take(chunkX, chunkY);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(decodeChunk(chunkX, chunkY, cached));
+        }
+        if (regionIndexReady.isDone() && !hasRegion(chunkX, chunkY)) {
+            // Nunca se guardó nada en esta región: no hace falta pasar por el hilo de IO
+            return CompletableFuture.completedFuture(null);
+        }
+        // Espera a la importación y al índice sin ocupar un hilo; después corre en el pool
+        return regionIndexReady.thenApplyAsync(ignored -> loadChunkInternal(chunkX, chunkY), readPool);
     }
 
     public Chunk loadChunk(int chunkX, int chunkY) {
@@ -99,209 +485,318 @@ public class ChunkIOManager {
     }
 
     private Chunk loadChunkInternal(int chunkX, int chunkY) {
-        String entryName = entryName(chunkX, chunkY);
-        try (ZipInputStream zis = openZip()) {
-            if (zis == null) return null;
-            ZipEntry entry;
-            while ((entry = zis.getNextEntry()) != null) {
-                if (entryName.equals(entry.getName())) {
-                    Chunk chunk = new Chunk(chunkX, chunkY);
-                    byte[] rawData = zis.readAllBytes();
-                    readChunkData(new String(rawData, StandardCharsets.UTF_8), chunk, chunkX, chunkY);
-                    zis.closeEntry();
-                    return chunk;
-                }
-                zis.closeEntry();
+        try {
+            // Un guardado pudo encolarse (o estar escribiéndose) mientras esta carga esperaba su turno
+            byte[] rawData = saveQueue.pendingData(chunkX, chunkY);
+            if (rawData == null) {
+                RegionFile region = existingRegion(chunkX, chunkY);
+                byte[] stored = (region != null) ? region.read(chunkX, chunkY) : null;
+                if (stored == null) return null;
+                cache.recordMiss();
+                rawData = compressor.decompress(stored);
             }
+            if (rawData == null) return null;
+            return decodeChunk(chunkX, chunkY, rawData);
         } catch (IOException e) {
             System.err.println("[LOAD] Error cargando chunk (" + chunkX + "," + chunkY + "): " + e.getMessage());
         }
         return null;
     }
 
+    /** Decodifica los datos de un chunk, o null (con aviso) si están corruptos. */
+    private Chunk decodeChunk(int chunkX, int chunkY, byte[] rawData) {
+        BlockType[] types = new BlockType[ChunkCodec.CELLS];
+        try {
+            ChunkCodec.decode(rawData, types, chunkX, chunkY);
+        } catch (IOException e) {
+            System.err.println("[LOAD] Error cargando chunk (" + chunkX + "," + chunkY + "): " + e.getMessage());
+            return null;
+        }
+        Chunk chunk = new Chunk(chunkX, chunkY);
+        chunk.setTypesGenerated(types);
+        return chunk;
+    }
+
+    /** Escribe los guardados pendientes y espera a que termine todo lo encolado antes. */
     public void flush() {
-        CompletableFuture.runAsync(() -> {}, ioExecutor).join();
+        CompletableFuture.runAsync(() -> flushPending(null), ioExecutor).join();
     }
 
-    public void shutdown() {
-        flush();
-        ioExecutor.shutdown();
+    /** Cierra con el tiempo máximo por defecto ({@code -Dmine2d.shutdownTimeoutMs}, 10 s). */
+    public boolean shutdown() {
+        return shutdown(SHUTDOWN_TIMEOUT_MS, TimeUnit.MILLISECONDS);
     }
 
-    private ArchiveEntries readArchiveEntries() {
-        ArchiveEntries archive = new ArchiveEntries();
-        try (ZipInputStream zis = openZip()) {
-            if (zis == null) return archive;
-            ZipEntry entry;
-            while ((entry = zis.getNextEntry()) != null) {
-                if (entry.getName().startsWith(CHUNKS_DIR)) {
-                    archive.chunkEntries.put(entry.getName(), zis.readAllBytes());
-                } else {
-                    archive.metadataEntries.put(entry.getName(), zis.readAllBytes());
-                }
-                zis.closeEntry();
+    /**
+     * Escribe lo pendiente, hace el último checkpoint del diario y cierra los archivos, esperando
+     * como mucho {@code timeout}. Si se agota, el cierre sigue en segundo plano y lo que no llegue
+     * a disco se recupera del diario la próxima vez que se abra el mundo.
+     * @return false si se agotó el tiempo
+     */
+    public boolean shutdown(long timeout, TimeUnit unit) {
+        CompletableFuture<Void> closed = CompletableFuture.runAsync(() -> {
+            checkpoint(null);
+            try {
+                journal.close();
+            } catch (IOException e) {
+                System.err.println("[SAVE] Error cerrando el diario de ediciones: " + e.getMessage());
             }
-        } catch (IOException e) {
-            System.err.println("[SAVE] Error leyendo archivo del mundo: " + e.getMessage());
+            // Las lecturas que aún estén en el pool terminan antes de cerrar las regiones
+            writePool.shutdown();
+            readPool.shutdown();
+            try {
+                readPool.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            closeRegions();
+        }, ioExecutor);
+        ioExecutor.shutdown();
+        try {
+            closed.get(timeout, unit);
+            return true;
+        } catch (TimeoutException e) {
+            System.err.println("[SAVE] El guardado no terminó en " + unit.toMillis(timeout) + " ms; sigue en segundo plano");
+        } catch (ExecutionException e) {
+            System.err.println("[SAVE] Error cerrando el mundo: " + e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
-        return archive;
+        return false;
     }
 
-    private void writeArchive(Map<String, byte[]> metadataEntries, Map<String, byte[]> chunkEntries) {
-        try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(WORLD_FILE))) {
-            for (Map.Entry<String, byte[]> entry : metadataEntries.entrySet()) {
-                zos.putNextEntry(new ZipEntry(entry.getKey()));
-                zos.write(entry.getValue());
-                zos.closeEntry();
+    /**
+     * Cierra los archivos y los hilos sin escribir nada: ni la cola, ni metadatos, ni checkpoint
+     * del diario. Para abandonar un mundo abierto que no se debe modificar.
+     */
+    void closeWithoutSaving() {
+        CompletableFuture<Void> closed = CompletableFuture.runAsync(() -> {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                System.err.println("[SAVE] Error cerrando el diario de ediciones: " + e.getMessage());
             }
-            for (Map.Entry<String, byte[]> entry : chunkEntries.entrySet()) {
-                zos.putNextEntry(new ZipEntry(entry.getKey()));
-                zos.write(entry.getValue());
-                zos.closeEntry();
+            writePool.shutdown();
+            readPool.shutdown();
+            closeRegions();
+        }, ioExecutor);
+        ioExecutor.shutdown();
+        closed.join();
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    /** Región que contiene el chunk, abriéndola (y creándola) si hace falta. Cualquier hilo de IO. */
+    private RegionFile region(int chunkX, int chunkY) throws IOException {
+        int regionX = RegionFile.regionCoord(chunkX);
+        int regionY = RegionFile.regionCoord(chunkY);
+        RegionFile region = openRegions.get(regionX, regionY);
+        if (region == null) {
+            // Apertura poco frecuente: un único cerrojo evita abrir dos canales para el mismo archivo
+            synchronized (openRegions) {
+                region = openRegions.get(regionX, regionY);
+                if (region == null) {
+                    Files.createDirectories(worldDir.resolve(REGION_DIR));
+                    Path path = regionPath(regionX, regionY);
+                    regionIndex.putIfAbsent(regionX, regionY, path);
+                    region = new RegionFile(path);
+                    openRegions.put(regionX, regionY, region);
+                }
             }
-        } catch (IOException e) {
-            System.err.println("[SAVE] Error escribiendo archivo del mundo: " + e.getMessage());
         }
+        return region;
     }
 
-    private byte[] serializePlayerPosition(Punto playerPosition) {
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream();
-             DataOutputStream dos = new DataOutputStream(baos)) {
-            dos.writeDouble(playerPosition.x());
-            dos.writeDouble(playerPosition.y());
-            dos.flush();
-            return baos.toByteArray();
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
+    /** Como {@link #region} pero sin crear archivos: null si la región no existe en disco. */
+    private RegionFile existingRegion(int chunkX, int chunkY) throws IOException {
+        int regionX = RegionFile.regionCoord(chunkX);
+        int regionY = RegionFile.regionCoord(chunkY);
+        RegionFile region = openRegions.get(regionX, regionY);
+        if (region == null && regionIndex.containsKey(regionX, regionY)) {
+            region = region(chunkX, chunkY);
         }
+        return region;
     }
 
-    private byte[] serializeSeed(long seed) {
-        try (ByteArrayOutputStream baos = new ByteArrayOutputStream();
-             DataOutputStream dos = new DataOutputStream(baos)) {
-            dos.writeLong(seed);
-            dos.flush();
-            return baos.toByteArray();
-        } catch (IOException e) {
-            throw new UncheckedIOException(e);
+    private boolean hasRegion(int chunkX, int chunkY) {
+        return regionIndex.containsKey(RegionFile.regionCoord(chunkX), RegionFile.regionCoord(chunkY));
+    }
+
+    /** Marca la región del chunk como presente antes de encolar su escritura (ver {@link #loadChunkAsync}). */
+    private void reserveRegion(int chunkX, int chunkY) {
+        int regionX = RegionFile.regionCoord(chunkX);
+        int regionY = RegionFile.regionCoord(chunkY);
+        if (!regionIndex.containsKey(regionX, regionY)) {
+            regionIndex.putIfAbsent(regionX, regionY, regionPath(regionX, regionY));
         }
     }
 
-    private byte[] serializeChunk(Chunk chunk) {
-        String encoded = encodeChunk(chunk);
-        return encoded.getBytes(StandardCharsets.UTF_8);
+    /** Lista una sola vez las regiones del disco. Se ejecuta en el hilo de IO. */
+    private void indexRegions() {
+        Path dir = worldDir.resolve(REGION_DIR);
+        if (Files.isDirectory(dir)) {
+            try (Stream<Path> files = Files.list(dir)) {
+                files.forEach(path -> {
+                    int[] coords = parseRegionName(path.getFileName().toString());
+                    if (coords != null) regionIndex.putIfAbsent(coords[0], coords[1], path);
+                });
+            } catch (IOException e) {
+                System.err.println("[LOAD] Error listando regiones: " + e.getMessage());
+            }
+        }
+        regionIndexReady.complete(null);
     }
 
-    private ZipInputStream openZip() throws IOException {
-        Path worldPath = Paths.get(WORLD_FILE);
-        if (!Files.exists(worldPath)) {
+    /** Extrae (x, y) de "r.X.Y.mrg", o null si el nombre no tiene ese formato. */
+    private static int[] parseRegionName(String fileName) {
+        if (!fileName.startsWith("r.") || !fileName.endsWith(".mrg")) return null;
+        String[] parts = fileName.substring(2, fileName.length() - 4).split("\\.");
+        if (parts.length != 2) return null;
+        try {
+            return new int[] { Integer.parseInt(parts[0]), Integer.parseInt(parts[1]) };
+        } catch (NumberFormatException e) {
             return null;
         }
-        return new ZipInputStream(new FileInputStream(WORLD_FILE));
     }
 
-    private String entryName(int chunkX, int chunkY) {
-        return CHUNKS_DIR + chunkFileName(chunkX, chunkY);
+    private Path regionPath(int regionX, int regionY) {
+        return worldDir.resolve(REGION_DIR).resolve("r." + regionX + "." + regionY + ".mrg");
     }
 
-    private String chunkFileName(int chunkX, int chunkY) {
-        return "chunk_" + chunkX + "_" + chunkY + ".dat";
+    private void syncRegions() throws IOException {
+        for (RegionFile region : openRegions.values()) {
+            region.sync();
+        }
     }
 
-    private String encodeChunk(Chunk chunk) {
-        StringBuilder builder = new StringBuilder();
-        String currentId = null;
-        int runLength = 0;
-        for (int y = 0; y < Chunk.CHUNK_SIZE; y++) {
-            for (int x = 0; x < Chunk.CHUNK_SIZE; x++) {
-                BasicBlock block = chunk.getBlock(x, y);
-                String blockId = (block == null) ? "air" : block.getId();
-                if (currentId == null) {
-                    currentId = blockId;
-                    runLength = 1;
-                } else if (currentId.equals(blockId)) {
-                    runLength++;
-                } else {
-                    appendRun(builder, runLength, currentId);
-                    currentId = blockId;
-                    runLength = 1;
-                }
+    private void closeRegions() {
+        for (RegionFile region : openRegions.values()) {
+            try {
+                region.close();
+            } catch (IOException e) {
+                System.err.println("[SAVE] Error cerrando región: " + e.getMessage());
             }
         }
-        if (currentId != null) {
-            appendRun(builder, runLength, currentId);
-        }
-        return builder.toString();
+        openRegions.clear();
     }
 
-    private void appendRun(StringBuilder builder, int count, String blockId) {
-        if (builder.length() > 0) {
-            builder.append('\n');
-        }
-        builder.append(count).append('*').append(blockId);
+    /** Escribe un archivo de metadatos de forma atómica (archivo temporal + renombrado). */
+    private void writeMetadata(String name, byte[] data) throws IOException {
+        Files.createDirectories(worldDir);
+        Path target = worldDir.resolve(name);
+        Path tmp = worldDir.resolve(name + ".tmp");
+        Files.write(tmp, data);
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
     }
 
-    private void readChunkData(String encodedData, Chunk chunk, int chunkX, int chunkY) throws IOException {
-        if (encodedData == null || encodedData.isEmpty()) {
-            throw new IOException("Datos de chunk vacíos");
+    private byte[] readMetadata(String name) {
+        Path path = worldDir.resolve(name);
+        if (!Files.exists(path)) return null;
+        try {
+            return Files.readAllBytes(path);
+        } catch (IOException e) {
+            System.err.println("[LOAD] Error leyendo " + name + ": " + e.getMessage());
+            return null;
         }
-        String[] runs = encodedData.split("\n");
-        final int totalBlocks = Chunk.CHUNK_SIZE * Chunk.CHUNK_SIZE;
-        int index = 0;
-        for (String rawRun : runs) {
-            String run = rawRun.trim();
-            if (run.isEmpty()) {
-                continue;
-            }
-            int separator = run.indexOf('*');
-            if (separator <= 0 || separator == run.length() - 1) {
-                throw new IOException("Formato de run inválido: " + run);
-            }
-            int count;
-            try {
-                count = Integer.parseInt(run.substring(0, separator));
-            } catch (NumberFormatException e) {
-                throw new IOException("Conteo inválido en run: " + run, e);
+    }
+
+    /**
+     * Importa un {@code world.wgz} antiguo al formato de regiones, en una sola pasada y solo si
+     * aún no hay mundo en {@code world/}. Los datos de cada chunk se copian tal cual.
+     */
+    private void migrateLegacyArchive() {
+        Path legacy = Paths.get(LEGACY_WORLD_FILE);
+        if (Files.exists(worldDir) || !Files.exists(legacy)) return;
+        int imported = 0;
+        // ZipFile lee el directorio central: los metadatos se buscan por nombre sin recorrer el archivo
+        try (ZipFile zip = new ZipFile(legacy.toFile())) {
+            for (String name : new String[] { PLAYER_FILE, META_FILE }) {
+                ZipEntry entry = zip.getEntry(name);
+                if (entry != null) {
+                    try (InputStream in = zip.getInputStream(entry)) {
+                        writeMetadata(name, in.readAllBytes());
+                    }
+                }
             }
-            String blockId = run.substring(separator + 1);
-            for (int i = 0; i < count; i++) {
-                if (index >= totalBlocks) {
-                    throw new IOException("Chunk con más bloques de los esperados (" + totalBlocks + ")");
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                String name = entry.getName();
+                if (!name.startsWith(LEGACY_CHUNKS_DIR)) continue;
+                int[] coords = parseLegacyChunkName(name.substring(LEGACY_CHUNKS_DIR.length()));
+                if (coords == null) continue;
+                byte[] data;
+                try (InputStream in = zip.getInputStream(entry)) {
+                    data = in.readAllBytes();
+                }
+                if (data.length > 0) {
+                    region(coords[0], coords[1]).write(coords[0], coords[1], data);
+                    imported++;
                 }
-                int y = index / Chunk.CHUNK_SIZE;
-                int x = index % Chunk.CHUNK_SIZE;
-                placeBlockFromId(chunk, x, y, chunkX, chunkY, blockId);
-                index++;
             }
+            syncRegions();
+            System.out.println("[LOAD] Importado " + LEGACY_WORLD_FILE + " al formato de regiones (" + imported + " chunks)");
+        } catch (IOException e) {
+            System.err.println("[LOAD] Error importando " + LEGACY_WORLD_FILE + ": " + e.getMessage());
         }
-        if (index != totalBlocks) {
-            throw new IOException("Chunk incompleto. Esperados " + totalBlocks + " bloques, obtenidos " + index);
+    }
+
+    /** Extrae (x, y) de "chunk_X_Y.dat", o null si el nombre no tiene ese formato. */
+    private static int[] parseLegacyChunkName(String fileName) {
+        if (!fileName.startsWith("chunk_") || !fileName.endsWith(".dat")) return null;
+        String[] parts = fileName.substring(6, fileName.length() - 4).split("_");
+        if (parts.length != 2) return null;
+        try {
+            return new int[] { Integer.parseInt(parts[0]), Integer.parseInt(parts[1]) };
+        } catch (NumberFormatException e) {
+            return null;
         }
-        chunk.saved();
     }
 
-    private void placeBlockFromId(Chunk chunk, int localX, int localY, int chunkX, int chunkY, String blockId) {
-        if ("air".equals(blockId)) {
-            chunk.setBlockGenerated(localX, localY, null);
-            return;
+    private byte[] serializePlayerPosition(Punto playerPosition) {
+        try (ByteArrayOutputStream baos = new ByteArrayOutputStream();
+             DataOutputStream dos = new DataOutputStream(baos)) {
+            dos.writeDouble(playerPosition.x());
+            dos.writeDouble(playerPosition.y());
+            dos.flush();
+            return baos.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
-        double blockWorldX = (chunkX * Chunk.CHUNK_SIZE + localX) * BasicBlock.getSize();
-        int logicalY = chunkY * Chunk.CHUNK_SIZE + localY;
-        double blockWorldY = (Mundo.WORLD_HEIGHT_BLOCKS - 1 - logicalY) * BasicBlock.getSize();
-        Punto pos = new Punto(blockWorldX, blockWorldY);
-        if ("water".equals(blockId)) {
-            chunk.setBlockGenerated(localX, localY, new WaterBlock(pos));
-        } else if ("bedrock".equals(blockId)) {
-            chunk.setBlockGenerated(localX, localY, new BedrockBlock(pos));
-        } else {
-            chunk.setBlockGenerated(localX, localY, new BasicBlock(blockId, pos));
+    }
+
+    private byte[] serializeSeed(long seed) {
+        try (ByteArrayOutputStream baos = new ByteArrayOutputStream();
+             DataOutputStream dos = new DataOutputStream(baos)) {
+            dos.writeLong(seed);
+            dos.flush();
+            return baos.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
     }
 
+    private byte[] serializeTypes(BlockType[] types) {
+        return ChunkCodec.encode(types);
+    }
+
     public Punto loadWorld(Mundo mundo) {
-        Map<String, byte[]> metadataEntries = readMetadataOnly();
+        // Los metadatos se leen en el hilo de IO, después de la importación del formato antiguo
+        byte[][] metadata = CompletableFuture.supplyAsync(
+                () -> new byte[][] { readMetadata(PLAYER_FILE), readMetadata(META_FILE) }, ioExecutor).join();
+        if (mundo != null) {
+            // Ediciones de una sesión que no llegó a guardar: antes de cargar ningún chunk
+            recoverJournal().join();
+        }
         Punto spawn = new Punto(0, 0);
-        byte[] playerData = metadataEntries.get(PLAYER_FILE);
+        byte[] playerData = metadata[0];
         if (playerData != null) {
             try {
                 spawn = deserializePlayerPosition(playerData);
@@ -309,7 +804,7 @@ public class ChunkIOManager {
                 System.err.println("[LOAD] Error leyendo posición del jugador: " + e.getMessage());
             }
         }
-        byte[] seedData = metadataEntries.get(META_FILE);
+        byte[] seedData = metadata[1];
         if (seedData != null && mundo != null) {
             try {
                 long storedSeed = deserializeSeed(seedData);
@@ -323,21 +818,21 @@ public class ChunkIOManager {
         return spawn;
     }
 
-    private Map<String, byte[]> readMetadataOnly() {
-        Map<String, byte[]> metadataEntries = new LinkedHashMap<>();
-        try (ZipInputStream zis = openZip()) {
-            if (zis == null) return metadataEntries;
-            ZipEntry entry;
-            while ((entry = zis.getNextEntry()) != null) {
-                if (!entry.getName().startsWith(CHUNKS_DIR)) {
-                    metadataEntries.put(entry.getName(), zis.readAllBytes());
-                }
-                zis.closeEntry();
+    /**
+     * Semilla guardada en los metadatos del mundo, o null si aún no hay. Se lee en el hilo de IO,
+     * después de la importación del formato antiguo.
+     * @throws UncheckedIOException si los metadatos existen pero no se pueden leer
+     */
+    Long storedSeed() {
+        return CompletableFuture.supplyAsync(() -> {
+            Path path = worldDir.resolve(META_FILE);
+            if (!Files.exists(path)) return null;
+            try {
+                return deserializeSeed(Files.readAllBytes(path));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
-        } catch (IOException e) {
-            System.err.println("[LOAD] Error leyendo metadata del mundo: " + e.getMessage());
-        }
-        return metadataEntries;
+        }, ioExecutor).join();
     }
 
     private Punto deserializePlayerPosition(byte[] data) {
@@ -1,94 +1,126 @@
 package juego.mundo;
 
-import java.util.HashMap;
+import java.util.Collection;
 import java.util.HashSet;
-import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- * Manages the lifecycle of chunks: loading, unloading, saving, and generation.
+ * Ciclo de vida de los chunks: carga, generación, guardado y descarga.
+ *
+ * <p>Los chunks que no están guardados se generan en un pool de hilos ({@code -Dmine2d.genThreads},
+ * uno por núcleo por defecto), encadenados a la carga que falló: el hilo del juego solo recibe
+ * chunks completos ({@link ChunkStatus#GENERATED}) y los publica en
+ * {@link #processCompletedChunkLoads} como {@link ChunkStatus#READY}. Solo los chunks publicados
+ * están en el mapa de cargados, que es lo único que ven el render y la física.</p>
  */
 public class ChunkManager {
+    private static final int GEN_THREADS = Math.max(1,
+            Integer.getInteger("mine2d.genThreads", Runtime.getRuntime().availableProcessors()));
     
-    private final Map<String, Chunk> loadedChunks = new HashMap<>();
-    private final Map<String, CompletableFuture<Chunk>> pendingChunkLoads = new ConcurrentHashMap<>();
+    private final ChunkMap<Chunk> loadedChunks = new ChunkMap<>(128);
+    // Solo se modifica desde el hilo del juego; los callbacks de IO solo encolan resultados
+    private final ChunkMap<CompletableFuture<Chunk>> pendingChunkLoads = new ChunkMap<>();
     private final ConcurrentLinkedQueue<ChunkLoadResult> completedChunkLoads = new ConcurrentLinkedQueue<>();
     private final ChunkIOManager chunkIOManager;
+    private final ExecutorService generationPool;
+    private final Heightmap heightmap;
     private final long seed;
 
     public ChunkManager(long seed) {
         this.seed = seed;
-        this.chunkIOManager = new ChunkIOManager();
+        this.chunkIOManager = new ChunkIOManager(seed);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.generationPool = Executors.newFixedThreadPool(GEN_THREADS, r -> {
+            Thread t = new Thread(r, "chunk-gen-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.heightmap = new Heightmap(this, seed);
+        chunkIOManager.startCheckpoints(loadedChunks);
     }
 
     public Chunk getChunk(int chunkX, int chunkY) {
-        return loadedChunks.get(key(chunkX, chunkY));
+        return loadedChunks.get(chunkX, chunkY);
     }
 
     public void ensureChunkLoadedSync(int chunkX, int chunkY) {
-        String k = key(chunkX, chunkY);
-        if (loadedChunks.containsKey(k)) return;
+        if (loadedChunks.containsKey(chunkX, chunkY)) return;
 
-        CompletableFuture<Chunk> pending = pendingChunkLoads.remove(k);
-        Chunk chunk = null;
-        if (pending != null) {
-            try {
-                chunk = pending.join();
-            } catch (Exception e) {
-                System.err.println("[LOAD] Error completando chunk pendiente (" + chunkX + "," + chunkY + "): " + e.getMessage());
-            }
+        // Misma tubería que las cargas asíncronas: este hilo solo espera a que termine
+        CompletableFuture<Chunk> pending = pendingChunkLoads.remove(chunkX, chunkY);
+        if (pending == null) {
+            pending = loadOrGenerate(chunkX, chunkY);
         }
-        
-        if (chunk == null) {
-            chunk = chunkIOManager.loadChunk(chunkX, chunkY);
+        Chunk chunk = null;
+        try {
+            chunk = pending.join();
+        } catch (Exception e) {
+            System.err.println("[LOAD] Error completando chunk pendiente (" + chunkX + "," + chunkY + "): " + e.getMessage());
         }
-        
+
         if (chunk == null) {
             chunk = createGeneratedChunk(chunkX, chunkY);
         }
         
-        loadedChunks.put(k, chunk);
+        publish(chunk);
     }
 
     public void requestChunkLoad(int chunkX, int chunkY) {
-        String k = key(chunkX, chunkY);
-        if (loadedChunks.containsKey(k) || pendingChunkLoads.containsKey(k)) return;
+        if (loadedChunks.containsKey(chunkX, chunkY) || pendingChunkLoads.containsKey(chunkX, chunkY)) return;
 
-        CompletableFuture<Chunk> future = chunkIOManager.loadChunkAsync(chunkX, chunkY);
+        CompletableFuture<Chunk> future = loadOrGenerate(chunkX, chunkY);
         future.whenComplete((chunk, throwable) -> {
             if (throwable != null) {
                 System.err.println("[LOAD] Error asíncrono chunk (" + chunkX + "," + chunkY + "): " + throwable.getMessage());
             }
-            completedChunkLoads.add(new ChunkLoadResult(k, chunkX, chunkY, (throwable == null) ? chunk : null));
+            completedChunkLoads.add(new ChunkLoadResult(chunkX, chunkY, (throwable == null) ? chunk : null));
         });
-        pendingChunkLoads.put(k, future);
+        pendingChunkLoads.put(chunkX, chunkY, future);
     }
 
+    /**
+     * Publica los chunks que terminaron de cargarse o generarse.
+     * @return los chunks que han pasado a {@link ChunkStatus#READY} en esta llamada
+     */
     public Set<Chunk> processCompletedChunkLoads() {
         Set<Chunk> ready = new HashSet<>();
         ChunkLoadResult result;
         while ((result = completedChunkLoads.poll()) != null) {
-            pendingChunkLoads.remove(result.key);
-            if (loadedChunks.containsKey(result.key)) {
+            pendingChunkLoads.remove(result.chunkX, result.chunkY);
+            Chunk existing = loadedChunks.get(result.chunkX, result.chunkY);
+            if (existing != null) {
+                // Ya cargado por otra vía (p.ej. ensureChunkLoadedSync): descartar la copia duplicada
+                if (result.chunk != null && result.chunk != existing) result.chunk.release();
                 continue;
             }
             Chunk chunk = result.chunk;
             if (chunk == null) {
+                // Solo si falló la tubería (p.ej. pool ya cerrado): generar aquí como último recurso
                 chunk = createGeneratedChunk(result.chunkX, result.chunkY);
             }
-            loadedChunks.put(result.key, chunk);
-            ready.add(chunk);
+            if (publish(chunk) == chunk) {
+                ready.add(chunk);
+            }
         }
         return ready;
     }
 
-    public void unloadChunks(List<String> keysToRemove) {
-        for (String key : keysToRemove) {
-            loadedChunks.remove(key);
+    public void unloadChunks(Collection<Chunk> chunksToRemove) {
+        for (Chunk chunk : chunksToRemove) {
+            // Los chunks deben estar guardados antes de descargarse: aquí se libera su memoria
+            if (loadedChunks.remove(chunk.chunkX, chunk.chunkY) == chunk) {
+                // Una edición del editor puede llegar entre el último guardado y la liberación:
+                // se vuelve a guardar hasta liberarlo sin cambios pendientes
+                do {
+                    saveChunk(chunk);
+                    chunkIOManager.cacheUnloaded(chunk);
+                } while (!chunk.releaseIfSaved());
+            }
         }
     }
 
@@ -99,30 +131,88 @@ public class ChunkManager {
     }
 
     public void saveAll() {
-        for (Chunk chunk : loadedChunks.values()) {
-            saveChunk(chunk);
-        }
+        loadedChunks.forEach(this::saveChunk);
         chunkIOManager.flush();
     }
 
     public void close() {
-        saveAll();
+        // Las instantáneas se toman ya; la escritura espera como mucho el tiempo de cierre del IO
+        loadedChunks.forEach(this::saveChunk);
+        generationPool.shutdownNow();
         chunkIOManager.shutdown();
+        loadedChunks.forEach(Chunk::release);
+        loadedChunks.clear();
     }
 
-    public Map<String, Chunk> getLoadedChunks() {
+    public ChunkMap<Chunk> getLoadedChunks() {
         return loadedChunks;
     }
 
+    /** Estado de la caché por capas: chunks cargados, codificados en memoria y lecturas de disco. */
+    public CacheMetrics getCacheMetrics() {
+        int decoded = 0;
+        long decodedBytes = 0;
+        for (Chunk chunk : loadedChunks.values()) {
+            decoded++;
+            decodedBytes += chunk.memoryBytes();
+        }
+        OffHeapSlabPool offHeap = OffHeapSlabPool.shared();
+        long offHeapUsed = (long) offHeap.getUsedSlots() * OffHeapSlabPool.SLOT_BYTES;
+        return chunkIOManager.cacheMetrics(decoded, decodedBytes, offHeapUsed, offHeap.getReservedBytes());
+    }
+
+    public ChunkIOManager getIOManager() {
+        return chunkIOManager;
+    }
+
+    Heightmap getHeightmap() {
+        return heightmap;
+    }
+
+    /**
+     * Inserta un chunk ya completo en el mapa (a partir de aquí lo ven los demás hilos) como
+     * READY. Si otro hilo se adelantó con la misma posición, se libera esta copia y se devuelve la
+     * existente.
+     */
+    private Chunk publish(Chunk chunk) {
+        Chunk existing = loadedChunks.putIfAbsent(chunk.chunkX, chunk.chunkY, chunk);
+        if (existing != null) {
+            chunk.release();
+            return existing;
+        }
+        heightmap.onChunkLoaded(chunk);
+        chunk.setStatus(ChunkStatus.READY);
+        return chunk;
+    }
+
+    /**
+     * Carga el chunk del disco o, si no está guardado (o falla la lectura), lo genera en el pool de
+     * generación. El futuro se completa con el chunk en {@link ChunkStatus#GENERATED}.
+     */
+    private CompletableFuture<Chunk> loadOrGenerate(int chunkX, int chunkY) {
+        return chunkIOManager.loadChunkAsync(chunkX, chunkY)
+                .exceptionally(throwable -> {
+                    System.err.println("[LOAD] Error asíncrono chunk (" + chunkX + "," + chunkY + "): " + throwable.getMessage());
+                    return null;
+                })
+                .thenCompose(chunk -> {
+                    if (chunk == null) {
+                        return CompletableFuture.supplyAsync(() -> createGeneratedChunk(chunkX, chunkY), generationPool);
+                    }
+                    // Lo guardado ya incluye terreno y orillas
+                    chunk.setStatus(ChunkStatus.GENERATED);
+                    return CompletableFuture.completedFuture(chunk);
+                });
+    }
+
     private Chunk createGeneratedChunk(int chunkX, int chunkY) {
         Chunk chunk = new Chunk(chunkX, chunkY);
+        // Sin marcar para guardar: el terreno generado se reproduce con la semilla
         componentes.GeneradorMundo.generarChunk(chunk, seed);
-        chunk.markDirty();
+        chunk.setStatus(ChunkStatus.GENERATED);
         return chunk;
     }
 
-    private String key(int x, int y) { return x + "_" + y; }
-
     // Record for internal use
-    private record ChunkLoadResult(String key, int chunkX, int chunkY, Chunk chunk) {}
+    private record ChunkLoadResult(int chunkX, int chunkY, Chunk chunk) {}
 }
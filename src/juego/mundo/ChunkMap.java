@@ -0,0 +1,241 @@
+package juego.mundo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+
+/**
+ * Tabla hash de direccionamiento abierto indexada por coordenadas de chunk.
+ *
+ * <p>La clave es un {@code long} empaquetado a partir de (chunkX, chunkY), por lo que las búsquedas
+ * no crean objetos. Usa sondeo lineal y borrado por desplazamiento hacia atrás (sin lápidas).</p>
+ *
+ * <p>Es segura entre hilos: las escrituras se serializan con un {@link StampedLock} y las lecturas
+ * son optimistas (sin bloquear), repitiéndose con el cerrojo de lectura solo si coincidieron con
+ * una escritura. La tabla se publica ya rellena tras cada redimensionado, y el sondeo está acotado
+ * por la capacidad, así que una lectura optimista nunca se queda en bucle.</p>
+ *
+ * @param <V> tipo de valor asociado a cada chunk
+ */
+public class ChunkMap<V> {
+    private static final int MIN_CAPACITY = 16;
+
+    private final StampedLock lock = new StampedLock();
+    private Table table;
+    private volatile int size;
+
+    public ChunkMap() {
+        this(64);
+    }
+
+    public ChunkMap(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2) capacity <<= 1;
+        table = new Table(capacity);
+    }
+
+    /** Empaqueta (chunkX, chunkY) en una clave de 64 bits. */
+    public static long key(int chunkX, int chunkY) {
+        return ((long) chunkX << 32) | (chunkY & 0xFFFFFFFFL);
+    }
+
+    public static int keyX(long key) { return (int) (key >> 32); }
+    public static int keyY(long key) { return (int) key; }
+
+    public V get(int chunkX, int chunkY) {
+        return get(key(chunkX, chunkY));
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        long stamp = lock.tryOptimisticRead();
+        Object v = find(table, key);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                v = find(table, key);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return (V) v;
+    }
+
+    public boolean containsKey(int chunkX, int chunkY) {
+        return get(key(chunkX, chunkY)) != null;
+    }
+
+    /**
+     * Asocia el valor a la clave y devuelve el valor anterior (o null).
+     * @throws IllegalArgumentException si {@code value} es null
+     */
+    public V put(int chunkX, int chunkY, V value) {
+        return put(chunkX, chunkY, value, true);
+    }
+
+    /**
+     * Asocia el valor solo si la clave no tenía ninguno. Devuelve el valor existente, o null si se insertó.
+     * @throws IllegalArgumentException si {@code value} es null
+     */
+    public V putIfAbsent(int chunkX, int chunkY, V value) {
+        return put(chunkX, chunkY, value, false);
+    }
+
+    @SuppressWarnings("unchecked")
+    private V put(int chunkX, int chunkY, V value, boolean replace) {
+        if (value == null) throw new IllegalArgumentException("ChunkMap no admite valores null");
+        long key = key(chunkX, chunkY);
+        long stamp = lock.writeLock();
+        try {
+            Table t = table;
+            int i = t.slot(key);
+            Object v;
+            while ((v = t.values[i]) != null) {
+                if (t.keys[i] == key) {
+                    if (replace) t.values[i] = value;
+                    return (V) v;
+                }
+                i = (i + 1) & t.mask;
+            }
+            t.keys[i] = key;
+            t.values[i] = value;
+            int newSize = size + 1;
+            size = newSize;
+            if (newSize * 2 > t.values.length) table = t.resized(t.values.length << 1);
+            return null;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public V remove(int chunkX, int chunkY) {
+        return remove(key(chunkX, chunkY));
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        long stamp = lock.writeLock();
+        try {
+            Table t = table;
+            int i = t.slot(key);
+            Object v;
+            while ((v = t.values[i]) != null) {
+                if (t.keys[i] == key) {
+                    t.shiftBack(i);
+                    size = size - 1;
+                    return (V) v;
+                }
+                i = (i + 1) & t.mask;
+            }
+            return null;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public int size() { return size; }
+
+    public boolean isEmpty() { return size == 0; }
+
+    public void clear() {
+        long stamp = lock.writeLock();
+        try {
+            Arrays.fill(table.values, null);
+            size = 0;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Recorre una instantánea de los valores tomada al empezar; se puede modificar el mapa
+     * (también desde otros hilos) durante el recorrido.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(Consumer<? super V> action) {
+        for (Object v : snapshot()) {
+            if (v != null) action.accept((V) v);
+        }
+    }
+
+    /** Copia de los valores actuales; se puede modificar el mapa mientras se recorre. */
+    public List<V> values() {
+        List<V> result = new ArrayList<>(size);
+        forEach(result::add);
+        return result;
+    }
+
+    private Object[] snapshot() {
+        long stamp = lock.readLock();
+        try {
+            return table.values.clone();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /** Busca la clave con el sondeo acotado por la capacidad (seguro también en lecturas optimistas). */
+    private static Object find(Table t, long key) {
+        int i = t.slot(key);
+        for (int probes = 0; probes <= t.mask; probes++) {
+            Object v = t.values[i];
+            if (v == null) return null;
+            if (t.keys[i] == key) return v;
+            i = (i + 1) & t.mask;
+        }
+        return null;
+    }
+
+    /** Arrays de la tabla; se sustituye entera al redimensionar. */
+    private static final class Table {
+        final long[] keys;
+        final Object[] values; // null = hueco libre
+        final int mask;
+
+        Table(int capacity) {
+            keys = new long[capacity];
+            values = new Object[capacity];
+            mask = capacity - 1;
+        }
+
+        int slot(long key) {
+            // Mezcla de bits (finalizador de MurmurHash3) para repartir coordenadas contiguas
+            long h = key;
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            return (int) h & mask;
+        }
+
+        void shiftBack(int hole) {
+            int i = hole;
+            while (true) {
+                i = (i + 1) & mask;
+                if (values[i] == null) break;
+                int ideal = slot(keys[i]);
+                // Mover la entrada al hueco si su posición ideal no queda entre el hueco y ella
+                if (((i - ideal) & mask) >= ((i - hole) & mask)) {
+                    keys[hole] = keys[i];
+                    values[hole] = values[i];
+                    hole = i;
+                }
+            }
+            values[hole] = null;
+        }
+
+        Table resized(int newCapacity) {
+            Table next = new Table(newCapacity);
+            for (int j = 0; j < values.length; j++) {
+                Object v = values[j];
+                if (v == null) continue;
+                int i = next.slot(keys[j]);
+                while (next.values[i] != null) i = (i + 1) & next.mask;
+                next.keys[i] = keys[j];
+                next.values[i] = v;
+            }
+            return next;
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package juego.mundo;
+
+/**
+ * Etapas por las que pasa un chunk, en orden, hasta que el render y la física lo ven.
+ *
+ * <p>Ninguna etapa depende de los chunks vecinos: las orillas se generan con las alturas de las
+ * columnas y la luz no se guarda por chunk. La carga y la generación entregan el chunk completo
+ * desde el IO o el pool de generación, y el hilo del juego lo publica.</p>
+ */
+public enum ChunkStatus {
+    /** Recién creado, sin bloques. */
+    EMPTY,
+    /** Bloques completos, orillas incluidas: cargados del disco o generados. */
+    GENERATED,
+    /**
+     * En el mapa de chunks cargados, con sus columnas en el {@link Heightmap}: visible para el
+     * render, la física y las ediciones.
+     */
+    READY
+}
@@ -0,0 +1,187 @@
+package juego.mundo;
+
+import juego.bloques.BlockType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Compara los modos de {@link ChunkCompressor} sobre los dos tipos de datos que se escriben en las
+ * regiones: chunks editados, guardados como diferencias con el terreno generado
+ * ({@link ChunkCodec#encodeAgainstGenerated}), y chunks completos como los de
+ * {@link WorldPregenerator}. Mide bytes de datos, bytes en disco (archivos de región), tiempo de
+ * guardado (comprimir + escribir + sincronizar) y de carga (leer + descomprimir + decodificar).
+ *
+ * <p>Uso: {@code java juego.mundo.CompressionBenchmark [anchoEnChunks] [semilla]}. Por defecto la
+ * muestra usa otra semilla y otra zona que el mundo con el que se entrena el diccionario, para no
+ * medirlo sobre sus propios datos. Trabaja en un directorio temporal que borra al terminar.</p>
+ */
+final class CompressionBenchmark {
+    private static final int ROUNDS = 5;
+    // Lejos del mundo de muestra del diccionario (semilla 12345, chunks -32..31)
+    private static final long DEFAULT_SEED = 987654321L;
+    private static final int ORIGIN_CHUNK_X = 4096;
+    // Franja de la superficie, donde se concentran las ediciones
+    private static final int EDIT_MIN_CHUNK_Y = 2;
+    private static final int EDIT_MAX_CHUNK_Y = 5;
+    private static final int MAX_EDITS = 32;
+
+    private CompressionBenchmark() {}
+
+    public static void main(String[] args) throws IOException {
+        int width = (args.length > 0) ? Integer.parseInt(args[0]) : 256;
+        long seed = (args.length > 1) ? Long.parseLong(args[1]) : DEFAULT_SEED;
+        int height = Mundo.WORLD_HEIGHT_BLOCKS / Chunk.CHUNK_SIZE;
+        int minX = ORIGIN_CHUNK_X - width / 2;
+        int maxX = minX + width - 1;
+
+        Sample edited = editedSample(seed, minX, maxX);
+        Sample full = fullSample(seed, minX, maxX, height);
+        System.out.printf("Semilla %d, chunks %d..%d%n", seed, minX, maxX);
+        // Primera pasada sin mostrar: calienta el JIT y el sistema de archivos para todos los modos
+        run(edited, false);
+        System.out.printf("%nEditados, como diferencias (%d chunks, alturas %d..%d, hasta %d ediciones):%n",
+                edited.n, EDIT_MIN_CHUNK_Y, EDIT_MAX_CHUNK_Y, MAX_EDITS);
+        run(edited, true);
+        run(full, false);
+        System.out.printf("%nCompletos, como los del pregenerador (%d chunks):%n", full.n);
+        run(full, true);
+    }
+
+    /**
+     * Chunks de la superficie con entre 1 y {@value #MAX_EDITS} celdas cambiadas: un túnel excavado
+     * a partir de una celda al azar y algún bloque colocado, como deja el jugador.
+     */
+    private static Sample editedSample(long seed, int minX, int maxX) {
+        Sample sample = new Sample((maxX - minX + 1) * (EDIT_MAX_CHUNK_Y - EDIT_MIN_CHUNK_Y + 1));
+        BlockType[] placeable = { BlockType.DIRT, BlockType.STONE, BlockType.SAND };
+        for (int cx = minX; cx <= maxX; cx++) {
+            for (int cy = EDIT_MIN_CHUNK_Y; cy <= EDIT_MAX_CHUNK_Y; cy++) {
+                BlockType[] types = ChunkCodec.generatedTypes(cx, cy, seed);
+                Random random = new Random(seed ^ ChunkMap.key(cx, cy));
+                int edits = 1 + random.nextInt(MAX_EDITS);
+                int x = random.nextInt(Chunk.CHUNK_SIZE);
+                int y = random.nextInt(Chunk.CHUNK_SIZE);
+                for (int e = 0; e < edits; e++) {
+                    types[y * Chunk.CHUNK_SIZE + x] = (random.nextInt(4) == 0)
+                            ? placeable[random.nextInt(placeable.length)] : null;
+                    x = Math.floorMod(x + random.nextInt(3) - 1, Chunk.CHUNK_SIZE);
+                    y = Math.floorMod(y + random.nextInt(3) - 1, Chunk.CHUNK_SIZE);
+                }
+                sample.add(cx, cy, ChunkCodec.encodeAgainstGenerated(types, cx, cy, seed));
+            }
+        }
+        return sample;
+    }
+
+    /** Todas las alturas de la franja, sin editar y en formato completo. */
+    private static Sample fullSample(long seed, int minX, int maxX, int height) {
+        Sample sample = new Sample((maxX - minX + 1) * height);
+        for (int cx = minX; cx <= maxX; cx++) {
+            for (int cy = 0; cy < height; cy++) {
+                sample.add(cx, cy, ChunkCodec.encode(ChunkCodec.generatedTypes(cx, cy, seed)));
+            }
+        }
+        return sample;
+    }
+
+    private static void run(Sample sample, boolean print) throws IOException {
+        byte[][] payloads = sample.payloads;
+        int[][] coords = sample.coords;
+        int n = sample.n;
+        BlockType[] types = new BlockType[ChunkCodec.CELLS];
+        if (print) {
+            System.out.printf("%-11s %10s %10s %10s %10s%n", "modo", "datos B", "disco B", "guardar ms", "cargar ms");
+        }
+        for (ChunkCompressor.Mode mode : ChunkCompressor.Mode.values()) {
+            Path dir = Files.createTempDirectory("mine2d-compression");
+            try {
+                ChunkCompressor compressor = new ChunkCompressor(mode, dir);
+                compressor.compress(payloads[0]); // entrena o carga el diccionario fuera de la medida
+                long payloadBytes = 0;
+                long bestSave = Long.MAX_VALUE;
+                long bestLoad = Long.MAX_VALUE;
+                for (int round = 0; round < ROUNDS; round++) {
+                    deleteRegions(dir);
+                    ChunkMap<RegionFile> regions = new ChunkMap<>();
+                    long start = System.nanoTime();
+                    payloadBytes = 0;
+                    for (int i = 0; i < n; i++) {
+                        byte[] stored = compressor.compress(payloads[i]);
+                        region(regions, dir, coords[i]).write(coords[i][0], coords[i][1], stored);
+                        payloadBytes += stored.length;
+                    }
+                    for (RegionFile region : regions.values()) region.sync();
+                    bestSave = Math.min(bestSave, System.nanoTime() - start);
+
+                    start = System.nanoTime();
+                    for (int i = 0; i < n; i++) {
+                        byte[] data = compressor.decompress(region(regions, dir, coords[i]).read(coords[i][0], coords[i][1]));
+                        ChunkCodec.decode(data, types, coords[i][0], coords[i][1]);
+                    }
+                    bestLoad = Math.min(bestLoad, System.nanoTime() - start);
+                    for (RegionFile region : regions.values()) region.close();
+                }
+                if (print) {
+                    System.out.printf("%-11s %10d %10d %10.1f %10.1f%n", mode, payloadBytes, regionBytes(dir),
+                            bestSave / 1e6, bestLoad / 1e6);
+                }
+            } finally {
+                deleteTree(dir);
+            }
+        }
+    }
+
+    private static RegionFile region(ChunkMap<RegionFile> regions, Path dir, int[] coord) throws IOException {
+        int rx = RegionFile.regionCoord(coord[0]);
+        int ry = RegionFile.regionCoord(coord[1]);
+        RegionFile region = regions.get(rx, ry);
+        if (region == null) {
+            region = new RegionFile(dir.resolve("r." + rx + "." + ry + ".mrg"));
+            regions.put(rx, ry, region);
+        }
+        return region;
+    }
+
+    private static long regionBytes(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.toString().endsWith(".mrg")).mapToLong(p -> p.toFile().length()).sum();
+        }
+    }
+
+    private static void deleteRegions(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path path : (Iterable<Path>) files.filter(p -> p.toString().endsWith(".mrg"))::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private static void deleteTree(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private static final class Sample {
+        final byte[][] payloads;
+        final int[][] coords;
+        int n;
+
+        Sample(int capacity) {
+            payloads = new byte[capacity][];
+            coords = new int[capacity][];
+        }
+
+        void add(int chunkX, int chunkY, byte[] payload) {
+            payloads[n] = payload;
+            coords[n++] = new int[] { chunkX, chunkY };
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package juego.mundo;
+
+import juego.bloques.BlockType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Diario de ediciones de bloques (write-ahead log) del mundo.
+ *
+ * <p>Cada edición se añade al final de {@code edits.log} como un registro fijo de
+ * {@value #RECORD_BYTES} bytes: tile X, tile Y lógica, id numérico del tipo (0 = aire) y una suma de
+ * control. Añadir es una sola escritura sin {@code force}: sobrevive a un cierre inesperado del
+ * juego en microsegundos, y llega al disco físico con el siguiente checkpoint.</p>
+ *
+ * <p>Un checkpoint aparta el diario actual como {@code edits.old} ({@link #rotate}), guarda los
+ * chunks y, cuando todo está escrito, lo borra ({@link #commit}). Si el juego se corta antes, al
+ * abrir el mundo se reaplican los dos archivos en orden. Los registros con suma de control inválida
+ * y un registro incompleto al final (escritura cortada) se descartan.</p>
+ *
+ * <p>Los métodos están sincronizados: el hilo del juego añade y el hilo de IO rota.</p>
+ */
+final class EditJournal implements AutoCloseable {
+    static final int RECORD_BYTES = 16;
+    private static final String LOG_FILE = "edits.log";
+    private static final String CHECKPOINT_FILE = "edits.old";
+    private static final int CHECK_SEED = 0x4D32_4A4C; // "M2JL"
+
+    /** Edición registrada (Y lógica, {@code type} null = aire). */
+    record Edit(int tileX, int tileY, BlockType type) {}
+
+    private final Path dir;
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+    private FileChannel channel;
+    private long pendingRecords;
+
+    EditJournal(Path dir) {
+        this.dir = dir;
+    }
+
+    /** Añade una edición al diario. */
+    synchronized void append(int tileX, int tileY, BlockType type) throws IOException {
+        if (channel == null) {
+            Files.createDirectories(dir);
+            channel = FileChannel.open(dir.resolve(LOG_FILE),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        int id = (type == null) ? BlockType.AIR_NUMERIC_ID : type.getNumericId();
+        record.clear();
+        record.putInt(tileX).putInt(tileY).putInt(id).putInt(check(tileX, tileY, id)).flip();
+        while (record.hasRemaining()) {
+            channel.write(record);
+        }
+        pendingRecords++;
+    }
+
+    /** Ediciones añadidas desde la última rotación. */
+    synchronized long pendingRecords() {
+        return pendingRecords;
+    }
+
+    /**
+     * Aparta el diario actual para un checkpoint; las ediciones siguientes van a un diario nuevo.
+     * Si quedaba un checkpoint sin confirmar, el diario actual se añade a él.
+     * @return false si no hay nada que confirmar
+     */
+    synchronized boolean rotate() throws IOException {
+        Path log = dir.resolve(LOG_FILE);
+        Path old = dir.resolve(CHECKPOINT_FILE);
+        if (channel != null) {
+            channel.force(false);
+            channel.close();
+            channel = null;
+        }
+        pendingRecords = 0;
+        if (Files.exists(log)) {
+            if (Files.exists(old)) {
+                // Checkpoint anterior sin confirmar: añadir detrás, sin restos de registros cortados
+                byte[] tail = Files.readAllBytes(log);
+                try (FileChannel out = FileChannel.open(old, StandardOpenOption.WRITE)) {
+                    out.truncate(out.size() - out.size() % RECORD_BYTES);
+                    ByteBuffer buffer = ByteBuffer.wrap(tail, 0, tail.length - tail.length % RECORD_BYTES);
+                    long position = out.size();
+                    while (buffer.hasRemaining()) {
+                        position += out.write(buffer, position);
+                    }
+                    out.force(false);
+                }
+                Files.delete(log);
+            } else {
+                Files.move(log, old, StandardCopyOption.ATOMIC_MOVE);
+            }
+        }
+        return Files.exists(old);
+    }
+
+    /** Ediciones apartadas por {@link #rotate}, en el orden en que se hicieron. */
+    synchronized List<Edit> readCheckpoint() throws IOException {
+        List<Edit> edits = new ArrayList<>();
+        Path old = dir.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(old)) return edits;
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(old));
+        int damaged = 0;
+        while (data.remaining() >= RECORD_BYTES) {
+            int tileX = data.getInt();
+            int tileY = data.getInt();
+            int id = data.getInt();
+            if (data.getInt() != check(tileX, tileY, id)) {
+                damaged++;
+                continue;
+            }
+            edits.add(new Edit(tileX, tileY, (id == BlockType.AIR_NUMERIC_ID) ? null : BlockType.fromNumericId(id)));
+        }
+        if (damaged > 0) {
+            System.err.println("[LOAD] Diario de ediciones: " + damaged + " registros dañados descartados");
+        }
+        return edits;
+    }
+
+    /** Los chunks con las ediciones apartadas ya están en disco: se descartan. */
+    synchronized void commit() throws IOException {
+        Files.deleteIfExists(dir.resolve(CHECKPOINT_FILE));
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.force(false);
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private static int check(int tileX, int tileY, int id) {
+        int h = CHECK_SEED;
+        h = (h ^ tileX) * 0x9E3779B1;
+        h = (h ^ tileY) * 0x85EBCA6B;
+        h = (h ^ id) * 0xC2B2AE35;
+        return h ^ (h >>> 16);
+    }
+}
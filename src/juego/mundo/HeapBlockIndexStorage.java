@@ -0,0 +1,28 @@
+package juego.mundo;
+
+import java.util.Arrays;
+
+/** Índices de paleta en un {@code byte[]} del heap. */
+final class HeapBlockIndexStorage implements BlockIndexStorage {
+    private final byte[] indices = new byte[Chunk.CHUNK_SIZE * Chunk.CHUNK_SIZE];
+
+    @Override
+    public int get(int index) {
+        return indices[index] & 0xFF;
+    }
+
+    @Override
+    public void set(int index, int value) {
+        indices[index] = (byte) value;
+    }
+
+    @Override
+    public void fill(int value) {
+        Arrays.fill(indices, (byte) value);
+    }
+
+    @Override
+    public void free() {
+        // El GC se encarga
+    }
+}
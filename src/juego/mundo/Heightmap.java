@@ -0,0 +1,163 @@
+package juego.mundo;
+
+import componentes.GeneradorMundo;
+import juego.bloques.BasicBlock;
+import juego.bloques.BlockType;
+
+/**
+ * Mapas de altura por columna de chunks.
+ *
+ * <p>Para cada X global guarda la Y lógica (0 abajo) del bloque no aire más alto (superficie,
+ * agua incluida) y la del bloque opaco más alto (todo salvo agua, lo que corta la luz del cielo).
+ * Una columna se crea a partir de la altura analítica del generador, sin generar chunks, y se
+ * corrige al cargar cada chunk y en cada edición, así que las consultas son O(1).</p>
+ *
+ * <p>Las columnas no se olvidan al descargar chunks (son 32 enteros por chunkX). Las ediciones de
+ * partidas anteriores en chunks que aún no se han cargado en esta sesión no se conocen: esas
+ * columnas devuelven la altura generada hasta que se carga el chunk afectado.</p>
+ *
+ * <p>Concurrencia: cada columna es su propio cerrojo. Las ediciones ({@link #setBlock}) y la
+ * incorporación de chunks de una columna se serializan entre sí, de modo que el bloque y su altura
+ * cambian juntos; las consultas leen un {@code int} sin bloquear.</p>
+ */
+final class Heightmap {
+    /** Valor devuelto para columnas sin ningún bloque. */
+    static final int NONE = -1;
+
+    private static final int SHIFT = Integer.numberOfTrailingZeros(Chunk.CHUNK_SIZE);
+    private static final int LOCAL_MASK = Chunk.CHUNK_SIZE - 1;
+
+    private final ChunkMap<Column> columns = new ChunkMap<>();
+    private final ChunkManager chunkManager;
+    private final long seed;
+
+    Heightmap(ChunkManager chunkManager, long seed) {
+        this.chunkManager = chunkManager;
+        this.seed = seed;
+    }
+
+    /** Y del bloque no aire más alto de la columna, o {@link #NONE}. */
+    int surfaceY(int tileX) {
+        return column(tileX >> SHIFT).surface[tileX & LOCAL_MASK];
+    }
+
+    /** Y del bloque opaco más alto de la columna, o {@link #NONE}. */
+    int opaqueY(int tileX) {
+        return column(tileX >> SHIFT).opaque[tileX & LOCAL_MASK];
+    }
+
+    /** Incorpora un chunk recién cargado o generado (puede traer ediciones guardadas). */
+    void onChunkLoaded(Chunk chunk) {
+        Column col = column(chunk.chunkX);
+        synchronized (col) {
+            mergeChunk(col, chunk);
+        }
+    }
+
+    /**
+     * Cambia un bloque del chunk y actualiza la altura de su columna de forma atómica.
+     * @return false si el chunk ya se descargó y la edición no se aplicó
+     */
+    boolean setBlock(Chunk chunk, int localX, int localY, int tileX, int tileY, BasicBlock block) {
+        Column col = column(tileX >> SHIFT);
+        synchronized (col) {
+            if (!chunk.setBlock(localX, localY, block)) return false;
+            onBlockChanged(col, tileX, tileY, (block == null) ? null : block.getType());
+            return true;
+        }
+    }
+
+    private void mergeChunk(Column col, Chunk chunk) {
+        int base = chunk.chunkY << SHIFT;
+        int topY = base + LOCAL_MASK;
+        for (int x = 0; x < Chunk.CHUNK_SIZE; x++) {
+            int surface = NONE;
+            int opaque = NONE;
+            for (int y = LOCAL_MASK; y >= 0 && opaque == NONE; y--) {
+                BlockType type = chunk.getBlockType(x, y);
+                if (type == null) continue;
+                if (surface == NONE) surface = base + y;
+                if (type != BlockType.WATER) opaque = base + y;
+            }
+            col.surface[x] = merge(col.surface[x], surface, base, topY, chunk.chunkX, x, false);
+            col.opaque[x] = merge(col.opaque[x], opaque, base, topY, chunk.chunkX, x, true);
+        }
+    }
+
+    /** Actualiza las alturas tras cambiar la tile (Y lógica) al tipo indicado (null = aire). */
+    private void onBlockChanged(Column col, int tileX, int tileY, BlockType type) {
+        int chunkX = tileX >> SHIFT;
+        int x = tileX & LOCAL_MASK;
+        if (type != null && tileY > col.surface[x]) {
+            col.surface[x] = tileY;
+        } else if (type == null && tileY == col.surface[x]) {
+            col.surface[x] = scanDown(chunkX, x, tileY - 1, false);
+        }
+        boolean opaque = type != null && type != BlockType.WATER;
+        if (opaque && tileY > col.opaque[x]) {
+            col.opaque[x] = tileY;
+        } else if (!opaque && tileY == col.opaque[x]) {
+            col.opaque[x] = scanDown(chunkX, x, tileY - 1, true);
+        }
+    }
+
+    private int merge(int current, int inChunk, int base, int topY, int chunkX, int x, boolean opaque) {
+        if (inChunk > current) return inChunk;
+        if (current < base || current > topY || inChunk == current) return current;
+        // La altura conocida caía en este chunk pero ya no hay bloque ahí: seguir bajando
+        return (inChunk != NONE) ? inChunk : scanDown(chunkX, x, base - 1, opaque);
+    }
+
+    /**
+     * Busca hacia abajo desde {@code fromY} en los chunks cargados. Al llegar a un chunk no cargado
+     * se supone que está como lo dejó el generador.
+     */
+    private int scanDown(int chunkX, int x, int fromY, boolean opaque) {
+        int y = fromY;
+        while (y >= 0) {
+            int chunkY = y >> SHIFT;
+            Chunk chunk = chunkManager.getChunk(chunkX, chunkY);
+            if (chunk == null) {
+                int generated = generatedHeight(chunkX, x, opaque);
+                int bottom = chunkY << SHIFT;
+                if (generated >= bottom) return Math.min(generated, y);
+                y = bottom - 1;
+                continue;
+            }
+            if (chunk.isUniformAir()) {
+                y = (chunkY << SHIFT) - 1;
+                continue;
+            }
+            BlockType type = chunk.getBlockType(x, y & LOCAL_MASK);
+            if (type != null && (!opaque || type != BlockType.WATER)) return y;
+            y--;
+        }
+        return NONE;
+    }
+
+    private int generatedHeight(int chunkX, int x, boolean opaque) {
+        GeneradorMundo.Columnas columnas = GeneradorMundo.columnas(seed, chunkX);
+        return opaque ? columnas.altura(x) : columnas.superficie(x);
+    }
+
+    private Column column(int chunkX) {
+        Column col = columns.get(chunkX, 0);
+        if (col == null) {
+            col = new Column();
+            for (int x = 0; x < Chunk.CHUNK_SIZE; x++) {
+                col.surface[x] = generatedHeight(chunkX, x, false);
+                col.opaque[x] = generatedHeight(chunkX, x, true);
+            }
+            // Si otro hilo la creó a la vez, quedarse con la suya
+            Column existing = columns.putIfAbsent(chunkX, 0, col);
+            if (existing != null) col = existing;
+        }
+        return col;
+    }
+
+    private static final class Column {
+        // Escritos dentro de synchronized (columna); las consultas los leen sin cerrojo
+        final int[] surface = new int[Chunk.CHUNK_SIZE];
+        final int[] opaque = new int[Chunk.CHUNK_SIZE];
+    }
+}
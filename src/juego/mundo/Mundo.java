@@ -1,17 +1,21 @@
 package juego.mundo;
 
-import componentes.GeneradorMundo;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
 import juego.bloques.BasicBlock;
+import juego.bloques.BlockType;
 import tipos.Punto;
 
+import java.util.Arrays;
+
 public class Mundo {
     public static final int WORLD_HEIGHT_BLOCKS = 256; // altura lógica total
-    private static final int VERTICAL_CHUNKS = (int)Math.ceil(WORLD_HEIGHT_BLOCKS / (double)Chunk.CHUNK_SIZE);
-    private static final int LOAD_RADIUS = 3;
+    // Radio de carga en chunks; configurable con -Dmine2d.loadRadius=N (útil junto al backend off-heap)
+    private static final int LOAD_RADIUS = Integer.getInteger("mine2d.loadRadius", 3);
+
+    /** Visitante de tiles para recorridos por regiones (coordenadas de tile, Y lógica 0 abajo). */
+    @FunctionalInterface
+    public interface TileVisitor {
+        void visit(int tileX, int tileY, BlockType type);
+    }
 
     private final ChunkManager chunkManager;
     private final long seed;
@@ -25,8 +29,6 @@ public class Mundo {
         this.chunkManager = new ChunkManager(seed);
     }
 
-    private String key(int x, int y) { return x + "_" + y; }
-
     public Chunk getChunk(int chunkX, int chunkY) {
         return chunkManager.getChunk(chunkX, chunkY);
     }
@@ -58,6 +60,67 @@ public class Mundo {
         return chunk.getBlock(localX, localY);
     }
 
+    /**
+     * Visita los bloques no aire de la región rectangular indicada (límites inclusivos, Y lógica).
+     * La resolución del chunk se paga una vez por chunk; los chunks uniformes de aire y los no
+     * cargados se saltan por completo. El orden de visita va chunk a chunk.
+     */
+    public void forEachInRegion(int minTileX, int minTileY, int maxTileX, int maxTileY, TileVisitor visitor) {
+        final int cs = Chunk.CHUNK_SIZE;
+        BlockType[] area = new BlockType[cs * cs];
+        for (int cx = floorDiv(minTileX, cs); cx <= floorDiv(maxTileX, cs); cx++) {
+            int baseX = cx * cs;
+            int x0 = Math.max(minTileX, baseX) - baseX;
+            int x1 = Math.min(maxTileX, baseX + cs - 1) - baseX;
+            for (int cy = floorDiv(minTileY, cs); cy <= floorDiv(maxTileY, cs); cy++) {
+                Chunk chunk = getChunk(cx, cy);
+                if (chunk == null || chunk.isUniformAir()) continue;
+                int baseY = cy * cs;
+                int y0 = Math.max(minTileY, baseY) - baseY;
+                int y1 = Math.min(maxTileY, baseY + cs - 1) - baseY;
+                // Copia coherente del área del chunk; el visitante se llama sin cerrojos tomados
+                chunk.copyTypes(x0, y0, x1, y1, area, 0, cs);
+                for (int y = y1; y >= y0; y--) {
+                    int row = (y - y0) * cs - x0;
+                    for (int x = x0; x <= x1; x++) {
+                        BlockType type = area[row + x];
+                        if (type != null) visitor.visit(baseX + x, baseY + y, type);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Copia los tipos de una región a {@code dest} en orden por filas:
+     * {@code dest[(y - minTileY) * width + (x - minTileX)]}, con null para aire o chunks no cargados.
+     * @throws IllegalArgumentException si {@code dest} es menor que {@code width * height}
+     */
+    public void copyRegion(BlockType[] dest, int minTileX, int minTileY, int width, int height) {
+        if (width <= 0 || height <= 0) return;
+        if (dest.length < width * height) {
+            throw new IllegalArgumentException("Destino demasiado pequeño: " + dest.length + " < " + (width * height));
+        }
+        Arrays.fill(dest, 0, width * height, null);
+        final int cs = Chunk.CHUNK_SIZE;
+        int maxTileX = minTileX + width - 1;
+        int maxTileY = minTileY + height - 1;
+        for (int cx = floorDiv(minTileX, cs); cx <= floorDiv(maxTileX, cs); cx++) {
+            int baseX = cx * cs;
+            int x0 = Math.max(minTileX, baseX);
+            int x1 = Math.min(maxTileX, baseX + cs - 1);
+            for (int cy = floorDiv(minTileY, cs); cy <= floorDiv(maxTileY, cs); cy++) {
+                Chunk chunk = getChunk(cx, cy);
+                if (chunk == null || chunk.isUniformAir()) continue;
+                int baseY = cy * cs;
+                int y0 = Math.max(minTileY, baseY);
+                int y1 = Math.min(maxTileY, baseY + cs - 1);
+                chunk.copyTypes(x0 - baseX, y0 - baseY, x1 - baseX, y1 - baseY,
+                        dest, (y0 - minTileY) * width + (x0 - minTileX), width);
+            }
+        }
+    }
+
     public void setBlockAt(double worldX, double worldY, BasicBlock block) {
         int blockX = (int) Math.floor(worldX / BasicBlock.getSize());
         int blockY = (int) Math.floor(worldY / BasicBlock.getSize());
@@ -67,7 +130,10 @@ public class Mundo {
         int localY = floorMod(blockY, Chunk.CHUNK_SIZE);
         Chunk chunk = getChunk(chunkX, chunkY);
         if (chunk == null) return;
-        chunk.setBlock(localX, localY, block);
+        // Un chunk que se descarga a la vez ignora la edición, igual que uno no cargado: no va al diario
+        if (chunkManager.getHeightmap().setBlock(chunk, localX, localY, blockX, blockY, block)) {
+            chunkManager.getIOManager().logEdit(blockX, blockY, (block == null) ? null : block.getType());
+        }
     }
 
     public void setBlockAtTile(int blockX, int blockY, BasicBlock block) {
@@ -77,7 +143,23 @@ public class Mundo {
         int localY = floorMod(blockY, Chunk.CHUNK_SIZE);
         Chunk chunk = getChunk(chunkX, chunkY);
         if (chunk == null) return;
-        chunk.setBlock(localX, localY, block);
+        // Un chunk que se descarga a la vez ignora la edición, igual que uno no cargado: no va al diario
+        if (chunkManager.getHeightmap().setBlock(chunk, localX, localY, blockX, blockY, block)) {
+            chunkManager.getIOManager().logEdit(blockX, blockY, (block == null) ? null : block.getType());
+        }
+    }
+
+    /**
+     * Y lógica (0 abajo) del bloque no aire más alto de la columna, agua incluida, o -1 si no hay
+     * ninguno. O(1) y no necesita la columna cargada (ver {@link Heightmap}).
+     */
+    public int getSurfaceY(int tileX) {
+        return chunkManager.getHeightmap().surfaceY(tileX);
+    }
+
+    /** Y lógica del bloque opaco (no agua) más alto de la columna, o -1. Es donde termina la luz del cielo. */
+    public int getOpaqueTopY(int tileX) {
+        return chunkManager.getHeightmap().opaqueY(tileX);
     }
 
     public void markChunkDirty(int blockX, int blockY) {
@@ -87,14 +169,8 @@ public class Mundo {
     public int getWorldHeightBlocks(){ return WORLD_HEIGHT_BLOCKS; }
     public double getWorldPixelHeight(){ return WORLD_HEIGHT_BLOCKS * BasicBlock.getSize(); }
 
-    private void ensureVerticalColumnLoadedSync(int chunkX){
-        for(int cy=0; cy<VERTICAL_CHUNKS; cy++){
-            chunkManager.ensureChunkLoadedSync(chunkX, cy);
-        }
-    }
-
     public void update(Punto playerPosition) {
-        Set<Chunk> newlyReadyChunks = chunkManager.processCompletedChunkLoads();
+        chunkManager.processCompletedChunkLoads();
 
         // playerPosition.y() está en píxeles top-based de pantalla. Convertir a índice de bloque bottom-based.
         int playerTileYTop = (int) Math.floor(playerPosition.y() / BasicBlock.getSize());
@@ -105,13 +181,10 @@ public class Mundo {
         int playerChunkY = floorDiv(playerBlockY, Chunk.CHUNK_SIZE);
 
         if (playerChunkX == lastCenterChunkX && playerChunkY == lastCenterChunkY) {
-            if (!newlyReadyChunks.isEmpty()) {
-                regenerateChunkFeatures(newlyReadyChunks);
-            }
             return;
         }
 
-        updateChunksAround(playerChunkX, playerChunkY, newlyReadyChunks);
+        updateChunksAround(playerChunkX, playerChunkY);
     }
 
     public void forzarActualizacionInicial(Punto posicionJugador) {
@@ -121,23 +194,21 @@ public class Mundo {
         int blockY = (WORLD_HEIGHT_BLOCKS - 1) - tileYTop;
         int chunkX = floorDiv(blockX, Chunk.CHUNK_SIZE);
         int chunkY = floorDiv(blockY, Chunk.CHUNK_SIZE);
-        Set<Chunk> ready = chunkManager.processCompletedChunkLoads();
-        updateChunksAround(chunkX, chunkY, ready);
+        chunkManager.processCompletedChunkLoads();
+        updateChunksAround(chunkX, chunkY);
         recargarChunksIniciales(chunkX, chunkY);
     }
 
     private void recargarChunksIniciales(int centerChunkX, int centerChunkY) {
         boolean removed = false;
-        Map<String, Chunk> loaded = chunkManager.getLoadedChunks();
-        java.util.List<String> toRemove = new java.util.ArrayList<>();
+        java.util.List<Chunk> toRemove = new java.util.ArrayList<>();
         
         for (int cx = centerChunkX - 1; cx <= centerChunkX + 1; cx++) {
             for (int cy = centerChunkY - 1; cy <= centerChunkY + 1; cy++) {
-                String k = key(cx, cy);
-                if (loaded.containsKey(k)) {
-                    Chunk existing = loaded.get(k);
+                Chunk existing = getChunk(cx, cy);
+                if (existing != null) {
                     chunkManager.saveChunk(existing);
-                    toRemove.add(k);
+                    toRemove.add(existing);
                     removed = true;
                 }
             }
@@ -147,40 +218,21 @@ public class Mundo {
         if (removed) {
             lastCenterChunkX = Integer.MIN_VALUE;
             lastCenterChunkY = Integer.MIN_VALUE;
-            updateChunksAround(centerChunkX, centerChunkY, new HashSet<>());
+            updateChunksAround(centerChunkX, centerChunkY);
         }
     }
 
-    private void updateChunksAround(int playerChunkX, int playerChunkY, Set<Chunk> preLoadedChunks) {
+    private void updateChunksAround(int playerChunkX, int playerChunkY) {
         lastCenterChunkX = playerChunkX;
         lastCenterChunkY = playerChunkY;
 
-        java.util.Set<Chunk> chunksToUpdateFeatures = new java.util.HashSet<>(preLoadedChunks);
-
-        // Phase 1: Ensure all chunks in the configurable area exist and collect new ones.
+        // Pedir los chunks del área configurable que falten (llegan ya completos, orillas incluidas)
         for (int cx = playerChunkX - LOAD_RADIUS; cx <= playerChunkX + LOAD_RADIUS; cx++) {
             for (int cy = playerChunkY - LOAD_RADIUS; cy <= playerChunkY + LOAD_RADIUS; cy++) {
-                ensureChunkExists(cx, cy, chunksToUpdateFeatures);
-            }
-        }
-
-        // Phase 2: For each new chunk, run feature generation on it and its neighbors.
-        if (!chunksToUpdateFeatures.isEmpty()) {
-            regenerateChunkFeatures(chunksToUpdateFeatures);
-        } else {
-            // Even previously loaded chunks may still need their first feature pass.
-            java.util.Set<Chunk> pending = new java.util.HashSet<>();
-            for (int cx = playerChunkX - LOAD_RADIUS; cx <= playerChunkX + LOAD_RADIUS; cx++) {
-                for (int cy = playerChunkY - LOAD_RADIUS; cy <= playerChunkY + LOAD_RADIUS; cy++) {
-                    Chunk chunk = getChunk(cx, cy);
-                    if (chunk != null && chunk.needsFeaturesGeneration()) {
-                        pending.add(chunk);
-                    }
+                if (getChunk(cx, cy) == null) {
+                    chunkManager.requestChunkLoad(cx, cy);
                 }
             }
-            if (!pending.isEmpty()) {
-                regenerateChunkFeatures(pending);
-            }
         }
 
         // Descargar / guardar chunks según distancia configurable
@@ -190,10 +242,9 @@ public class Mundo {
     private void autoSaveAndCleanupChunks(int playerChunkX, int playerChunkY) {
         final int autoSaveRadius = LOAD_RADIUS;
         final int unloadRadius = LOAD_RADIUS + 1;
-        java.util.List<String> chunksToRemove = new java.util.ArrayList<>();
+        java.util.List<Chunk> chunksToRemove = new java.util.ArrayList<>();
         
-        for (Map.Entry<String, Chunk> entry : chunkManager.getLoadedChunks().entrySet()) {
-            Chunk chunk = entry.getValue();
+        for (Chunk chunk : chunkManager.getLoadedChunks().values()) {
             int dx = Math.abs(chunk.chunkX - playerChunkX);
             int dy = Math.abs(chunk.chunkY - playerChunkY);
 
@@ -202,48 +253,12 @@ public class Mundo {
             }
 
             if (dx > unloadRadius || dy > unloadRadius) {
-                chunksToRemove.add(entry.getKey());
+                chunksToRemove.add(chunk);
             }
         }
         chunkManager.unloadChunks(chunksToRemove);
     }
 
-    private void regenerateChunkFeatures(java.util.Set<Chunk> targetChunks) {
-        java.util.Set<Chunk> finalUpdateSet = new java.util.HashSet<>();
-        for (Chunk newChunk : targetChunks) {
-            finalUpdateSet.add(newChunk);
-            // Add neighbors to ensure beach transitions line up.
-            for (int dx = -1; dx <= 1; dx++) {
-                for (int dy = -1; dy <= 1; dy++) {
-                    if (dx == 0 && dy == 0) continue;
-                    Chunk neighbor = getChunk(newChunk.chunkX + dx, newChunk.chunkY + dy);
-                    if (neighbor != null) {
-                        finalUpdateSet.add(neighbor);
-                    }
-                }
-            }
-        }
-
-        for (Chunk chunkToUpdate : finalUpdateSet) {
-            GeneradorMundo.generarFeaturesAdicionales(chunkToUpdate, this);
-            chunkToUpdate.markFeaturesGenerated();
-        }
-    }
-
-    /**
-     * Carga o genera un chunk concreto de forma sincrónica en este hilo.
-     */
-    private void ensureChunkExists(int chunkX, int chunkY, java.util.Set<Chunk> newChunks) {
-        Chunk existing = getChunk(chunkX, chunkY);
-        if (existing != null) {
-            if (existing.needsFeaturesGeneration() && newChunks != null) {
-                newChunks.add(existing);
-            }
-            return;
-        }
-        chunkManager.requestChunkLoad(chunkX, chunkY);
-    }
-
     public void ensureChunkLoadedSync(int chunkX, int chunkY) {
         chunkManager.ensureChunkLoadedSync(chunkX, chunkY);
     }
@@ -256,26 +271,18 @@ public class Mundo {
         chunkManager.close();
     }
 
-    public Map<String, Chunk> getChunksInRange(int minTileX, int minTileY, int maxTileX, int maxTileY) {
-        Map<String, Chunk> result = new HashMap<>();
-        int minChunkX = floorDiv(minTileX, Chunk.CHUNK_SIZE);
-        int maxChunkX = floorDiv(maxTileX, Chunk.CHUNK_SIZE);
-        int minChunkY = floorDiv(minTileY, Chunk.CHUNK_SIZE);
-        int maxChunkY = floorDiv(maxTileY, Chunk.CHUNK_SIZE);
+    public ChunkMap<Chunk> getLoadedChunks() {
+        return chunkManager.getLoadedChunks();
+    }
 
-        for (int cx = minChunkX; cx <= maxChunkX; cx++) {
-            for (int cy = minChunkY; cy <= maxChunkY; cy++) {
-                Chunk chunk = getChunk(cx, cy);
-                if (chunk != null) {
-                    result.put(key(cx, cy), chunk);
-                }
-            }
-        }
-        return result;
+    /** Estado de la caché de chunks por capas (ver {@link CacheMetrics}). */
+    public CacheMetrics getCacheMetrics() {
+        return chunkManager.getCacheMetrics();
     }
 
-    public Map<String, Chunk> getLoadedChunks() {
-        return chunkManager.getLoadedChunks();
+    /** Gestor de disco del mundo; es el único que debe escribir sus archivos. */
+    public ChunkIOManager getChunkIOManager() {
+        return chunkManager.getIOManager();
     }
 
     public Punto encontrarSpawnSeguro(double initialWorldX) {
@@ -323,30 +330,19 @@ public class Mundo {
         double worldX = initialWorldX + (chunkOffsetX * Chunk.CHUNK_SIZE * BasicBlock.getSize());
         int blockX = (int) Math.floor(worldX / BasicBlock.getSize());
 
-        // Ensure the vertical column of chunks is loaded before scanning
-        int chunkX = floorDiv(blockX, Chunk.CHUNK_SIZE);
-        ensureVerticalColumnLoadedSync(chunkX);
-
-        // Scan from top to bottom to find the first solid ground
-        for (int blockY = WORLD_HEIGHT_BLOCKS - 1; blockY >= 0; blockY--) {
-            BasicBlock block = getBlockAtTile(blockX, blockY);
-            if (block != null && !"water".equals(block.getId())) {
-                // Found solid ground. Check if the block above is water.
-                BasicBlock blockAbove = getBlockAtTile(blockX, blockY + 1);
-                if (blockAbove != null && "water".equals(blockAbove.getId())) {
-                    return null; // This column is submerged, invalid spawn
-                }
-
-                // This is a valid spawn point.
-                double blockTopScreenY = (WORLD_HEIGHT_BLOCKS - 1 - blockY) * BasicBlock.getSize();
-                double playerY = blockTopScreenY - (2 * BasicBlock.getSize());
-                return new Punto(worldX, playerY);
-            }
+        // The heightmap gives the first solid ground without loading the column
+        int blockY = getOpaqueTopY(blockX);
+        if (blockY < 0) {
+            return null; // No solid ground found in this column
+        }
+        // Anything non-air above the solid ground is water: the column is submerged, invalid spawn
+        if (getSurfaceY(blockX) > blockY) {
+            return null;
         }
-        return null; // No solid ground found in this column
-    }
 
-    private void updateChunksAround(int playerChunkX, int playerChunkY) {
-        updateChunksAround(playerChunkX, playerChunkY, java.util.Collections.emptySet());
+        // This is a valid spawn point.
+        double blockTopScreenY = (WORLD_HEIGHT_BLOCKS - 1 - blockY) * BasicBlock.getSize();
+        double playerY = blockTopScreenY - (2 * BasicBlock.getSize());
+        return new Punto(worldX, playerY);
     }
 }
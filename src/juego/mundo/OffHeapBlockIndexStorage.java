@@ -0,0 +1,44 @@
+package juego.mundo;
+
+import java.nio.ByteBuffer;
+
+/** Índices de paleta guardados en un hueco de un slab de memoria directa. */
+final class OffHeapBlockIndexStorage implements BlockIndexStorage {
+    private final OffHeapSlabPool pool;
+    private final ByteBuffer slab;
+    private final int slot;
+    private final int base;
+    private boolean freed = false;
+
+    OffHeapBlockIndexStorage(OffHeapSlabPool pool, ByteBuffer slab, int slot, int base) {
+        this.pool = pool;
+        this.slab = slab;
+        this.slot = slot;
+        this.base = base;
+    }
+
+    @Override
+    public int get(int index) {
+        return slab.get(base + index) & 0xFF;
+    }
+
+    @Override
+    public void set(int index, int value) {
+        slab.put(base + index, (byte) value);
+    }
+
+    @Override
+    public void fill(int value) {
+        byte b = (byte) value;
+        for (int i = 0; i < OffHeapSlabPool.SLOT_BYTES; i++) {
+            slab.put(base + i, b);
+        }
+    }
+
+    @Override
+    public void free() {
+        if (freed) return;
+        freed = true;
+        pool.release(slot);
+    }
+}
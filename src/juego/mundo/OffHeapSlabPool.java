@@ -0,0 +1,67 @@
+package juego.mundo;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reparte huecos de tamaño fijo (uno por chunk) dentro de slabs de memoria directa.
+ *
+ * <p>Cada slab es un {@link ByteBuffer#allocateDirect(int)} de {@link #SLOTS_PER_SLAB} huecos de
+ * {@code Chunk.CHUNK_SIZE}² bytes. Los huecos liberados vuelven a una pila y se reutilizan; los
+ * slabs no se devuelven al sistema mientras dure el proceso, así que el uso de memoria queda
+ * acotado por el máximo de chunks no uniformes cargados a la vez.</p>
+ */
+final class OffHeapSlabPool {
+    static final int SLOT_BYTES = Chunk.CHUNK_SIZE * Chunk.CHUNK_SIZE;
+    static final int SLOTS_PER_SLAB = 4096; // 1 MiB por slab
+
+    private static final OffHeapSlabPool SHARED = new OffHeapSlabPool();
+
+    private final List<ByteBuffer> slabs = new ArrayList<>();
+    private int[] freeSlots = new int[SLOTS_PER_SLAB];
+    private int freeCount = 0;
+    private int usedSlots = 0;
+
+    static OffHeapSlabPool shared() {
+        return SHARED;
+    }
+
+    synchronized BlockIndexStorage allocate() {
+        if (freeCount == 0) {
+            addSlab();
+        }
+        int slot = freeSlots[--freeCount];
+        usedSlots++;
+        ByteBuffer slab = slabs.get(slot / SLOTS_PER_SLAB);
+        return new OffHeapBlockIndexStorage(this, slab, slot, (slot % SLOTS_PER_SLAB) * SLOT_BYTES);
+    }
+
+    synchronized void release(int slot) {
+        freeSlots[freeCount++] = slot;
+        usedSlots--;
+    }
+
+    /** Huecos en uso (chunks no uniformes vivos con almacenamiento off-heap). */
+    synchronized int getUsedSlots() {
+        return usedSlots;
+    }
+
+    /** Bytes reservados fuera del heap por todos los slabs. */
+    synchronized long getReservedBytes() {
+        return (long) slabs.size() * SLOTS_PER_SLAB * SLOT_BYTES;
+    }
+
+    private void addSlab() {
+        int firstSlot = slabs.size() * SLOTS_PER_SLAB;
+        slabs.add(ByteBuffer.allocateDirect(SLOTS_PER_SLAB * SLOT_BYTES));
+        if (freeSlots.length < slabs.size() * SLOTS_PER_SLAB) {
+            freeSlots = Arrays.copyOf(freeSlots, slabs.size() * SLOTS_PER_SLAB);
+        }
+        // Apilar en orden inverso para repartir primero los huecos bajos
+        for (int i = SLOTS_PER_SLAB - 1; i >= 0; i--) {
+            freeSlots[freeCount++] = firstSlot + i;
+        }
+    }
+}
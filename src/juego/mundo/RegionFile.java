@@ -0,0 +1,181 @@
+package juego.mundo;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+
+/**
+ * Archivo de región: guarda los chunks de un bloque de {@link #SIZE}x{@link #SIZE} chunks.
+ *
+ * <p>Formato: una cabecera con una entrada por chunk (sector inicial y longitud en bytes, dos
+ * {@code int}) seguida de sectores de {@link #SECTOR_BYTES} bytes con los datos. Escribir un chunk
+ * solo toca sus sectores y su entrada de cabecera: los datos nuevos van a un hueco libre (o al
+ * final del archivo) y la entrada de cabecera queda pendiente hasta {@link #sync()}, que fuerza
+ * los datos al disco, escribe las entradas pendientes y vuelve a forzar. Los sectores viejos
+ * siguen ocupados hasta entonces, así que ninguna escritura del mismo lote los reutiliza y un corte
+ * en cualquier punto deja en la cabecera del disco la versión anterior o la nueva, ambas
+ * intactas.</p>
+ *
+ * <p>Los sectores ocupados se reconstruyen desde la cabecera al abrir. Los métodos están
+ * sincronizados: una región puede usarse desde varios hilos de IO.</p>
+ */
+final class RegionFile implements AutoCloseable {
+    /** Lado de la región en chunks. */
+    static final int SIZE = 16;
+    static final int SHIFT = Integer.numberOfTrailingZeros(SIZE);
+    static final int SECTOR_BYTES = 512;
+
+    private static final int ENTRIES = SIZE * SIZE;
+    private static final int HEADER_BYTES = ENTRIES * 8;
+    private static final int HEADER_SECTORS = (HEADER_BYTES + SECTOR_BYTES - 1) / SECTOR_BYTES;
+
+    private final FileChannel channel;
+    private final int[] sectorOffsets = new int[ENTRIES]; // 0 = chunk ausente
+    private final int[] byteLengths = new int[ENTRIES];
+    private final BitSet usedSectors = new BitSet();
+    // Entradas de cabecera escritas en memoria pero no en disco, y sectores que quedan libres al sincronizar
+    private final BitSet pendingEntries = new BitSet(ENTRIES);
+    private final BitSet pendingFree = new BitSet();
+    private int sectorCount;
+
+    RegionFile(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            if (channel.size() < HEADER_BYTES) {
+                // Región nueva: cabecera vacía
+                writeFully(header, 0);
+            } else {
+                readFully(header, 0);
+                header.flip();
+            }
+            long fileSectors = (channel.size() + SECTOR_BYTES - 1) / SECTOR_BYTES;
+            sectorCount = (int) Math.max(HEADER_SECTORS, fileSectors);
+            usedSectors.set(0, HEADER_SECTORS);
+            for (int i = 0; i < ENTRIES; i++) {
+                int offset = header.getInt(i * 8);
+                int length = header.getInt(i * 8 + 4);
+                int sectors = sectorsFor(length);
+                // Entradas que apuntan fuera del archivo (escritura interrumpida) se descartan
+                if (offset < HEADER_SECTORS || length <= 0 || offset + sectors > sectorCount) continue;
+                sectorOffsets[i] = offset;
+                byteLengths[i] = length;
+                usedSectors.set(offset, offset + sectors);
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /** Coordenada de región que contiene el chunk indicado. */
+    static int regionCoord(int chunkCoord) {
+        return chunkCoord >> SHIFT;
+    }
+
+    /** Datos guardados del chunk (coordenadas globales), o null si la región no lo tiene. */
+    synchronized byte[] read(int chunkX, int chunkY) throws IOException {
+        int i = index(chunkX, chunkY);
+        int offset = sectorOffsets[i];
+        if (offset == 0) return null;
+        ByteBuffer data = ByteBuffer.allocate(byteLengths[i]);
+        readFully(data, (long) offset * SECTOR_BYTES);
+        return data.array();
+    }
+
+    /** Indica si la región tiene datos para el chunk, sin leerlos. */
+    synchronized boolean contains(int chunkX, int chunkY) {
+        return sectorOffsets[index(chunkX, chunkY)] != 0;
+    }
+
+    /**
+     * Guarda los datos del chunk (coordenadas globales) reutilizando huecos libres cuando es posible.
+     * {@link #read} devuelve ya los datos nuevos, pero no son duraderos hasta {@link #sync()}.
+     * @return bytes tocados en disco (sectores completos más la entrada de cabecera)
+     */
+    synchronized int write(int chunkX, int chunkY, byte[] data) throws IOException {
+        if (data.length == 0) throw new IllegalArgumentException("Datos de chunk vacíos");
+        int i = index(chunkX, chunkY);
+        int sectors = sectorsFor(data.length);
+        int newOffset = findFreeRun(sectors);
+        writeFully(ByteBuffer.wrap(data), (long) newOffset * SECTOR_BYTES);
+        usedSectors.set(newOffset, newOffset + sectors);
+        sectorCount = Math.max(sectorCount, newOffset + sectors);
+
+        int oldOffset = sectorOffsets[i];
+        if (oldOffset != 0) {
+            // La cabecera del disco puede seguir apuntando aquí: se liberan al sincronizar
+            pendingFree.set(oldOffset, oldOffset + sectorsFor(byteLengths[i]));
+        }
+        sectorOffsets[i] = newOffset;
+        byteLengths[i] = data.length;
+        pendingEntries.set(i);
+        return sectors * SECTOR_BYTES + 8;
+    }
+
+    /**
+     * Hace duraderas las escrituras: fuerza los datos al disco, después escribe las entradas de
+     * cabecera pendientes y las fuerza, y por último libera los sectores que ya no se usan.
+     */
+    synchronized void sync() throws IOException {
+        channel.force(false);
+        if (pendingEntries.isEmpty()) return;
+        for (int i = pendingEntries.nextSetBit(0); i >= 0; i = pendingEntries.nextSetBit(i + 1)) {
+            writeHeaderEntry(i, sectorOffsets[i], byteLengths[i]);
+        }
+        channel.force(false);
+        pendingEntries.clear();
+        usedSectors.andNot(pendingFree);
+        pendingFree.clear();
+    }
+
+    /** Sincroniza las escrituras pendientes y cierra el archivo. */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            sync();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private int findFreeRun(int sectors) {
+        int start = usedSectors.nextClearBit(HEADER_SECTORS);
+        while (start < sectorCount) {
+            int end = usedSectors.nextSetBit(start);
+            if (end < 0 || end - start >= sectors) return start;
+            start = usedSectors.nextClearBit(end);
+        }
+        return start; // añadir al final del archivo
+    }
+
+    private void writeHeaderEntry(int i, int offset, int length) throws IOException {
+        ByteBuffer entry = ByteBuffer.allocate(8);
+        entry.putInt(offset).putInt(length).flip();
+        writeFully(entry, (long) i * 8);
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position + buffer.position());
+            if (n < 0) throw new IOException("Fin de archivo inesperado en la región");
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    private static int sectorsFor(int length) {
+        return (length + SECTOR_BYTES - 1) / SECTOR_BYTES;
+    }
+
+    private static int index(int chunkX, int chunkY) {
+        return ((chunkY & (SIZE - 1)) << SHIFT) | (chunkX & (SIZE - 1));
+    }
+}
@@ -0,0 +1,23 @@
+package juego.mundo;
+
+/**
+ * Métricas de guardado de chunks acumuladas desde que se abrió el mundo (ver {@link SaveQueue}).
+ *
+ * @param queueDepth   chunks pendientes de escribir ahora mismo
+ * @param requested    guardados pedidos
+ * @param written      chunks escritos en disco
+ * @param batches      lotes escritos
+ * @param payloadBytes bytes de datos de chunk escritos
+ * @param diskBytes    bytes tocados en disco (sectores completos más la entrada de cabecera)
+ */
+public record SaveMetrics(int queueDepth, long requested, long written, long batches, long payloadBytes, long diskBytes) {
+    /** Guardados pedidos por cada escritura real (mayor que 1 cuando la cola fusiona). */
+    public double coalescingRatio() {
+        return (written == 0) ? 1.0 : (double) requested / written;
+    }
+
+    /** Bytes escritos en disco por byte de datos. */
+    public double writeAmplification() {
+        return (payloadBytes == 0) ? 1.0 : (double) diskBytes / payloadBytes;
+    }
+}
@@ -0,0 +1,94 @@
+package juego.mundo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cola de guardado de chunks con fusión de escrituras.
+ *
+ * <p>Guarda la última instantánea codificada de cada chunk pendiente: si un chunk se vuelve a
+ * guardar antes de que se vacíe la cola, la nueva versión sustituye a la anterior y solo se escribe
+ * una vez. {@link ChunkIOManager} decide cuándo vaciarla (por tiempo o por tamaño) y escribe cada
+ * lote de una vez. Un chunk sacado de la cola sigue aquí "en vuelo" hasta que su escritura termina:
+ * mientras tanto, y mientras está en la cola, las cargas lo leen de aquí en lugar del disco.</p>
+ *
+ * <p>Lleva también las métricas de guardado: profundidad de la cola, escrituras pedidas frente a
+ * escritas y bytes enviados al disco frente a bytes de datos.</p>
+ */
+final class SaveQueue {
+    /**
+     * Instantánea codificada de un chunk pendiente de escribir. {@code source} y {@code version}
+     * identifican el chunk en memoria y su versión ({@link Chunk#copyTypes}); {@code source} es null
+     * para datos que no vienen de un chunk cargado.
+     */
+    record PendingSave(int chunkX, int chunkY, byte[] data, Chunk source, int version) {}
+
+    private final ChunkMap<PendingSave> pending = new ChunkMap<>();
+    private final ChunkMap<PendingSave> inFlight = new ChunkMap<>();
+    private long requested;
+    private long written;
+    private long batches;
+    private long payloadBytes;
+    private long diskBytes;
+
+    /**
+     * Encola (o sustituye) la instantánea del chunk y devuelve la nueva profundidad de la cola. Si
+     * dos hilos guardan el mismo chunk a la vez, una instantánea más antigua no pisa a la nueva.
+     */
+    synchronized int offer(PendingSave save) {
+        PendingSave existing = pending.get(save.chunkX(), save.chunkY());
+        if (existing == null || existing.source() != save.source() || save.source() == null
+                || save.version() - existing.version() >= 0) {
+            pending.put(save.chunkX(), save.chunkY(), save);
+        }
+        requested++;
+        return pending.size();
+    }
+
+    /** Vuelve a encolar un guardado que falló, salvo que ya haya una versión más nueva en la cola. */
+    synchronized int retry(PendingSave save) {
+        removeInFlight(save);
+        pending.putIfAbsent(save.chunkX(), save.chunkY(), save);
+        return pending.size();
+    }
+
+    /** Datos más recientes del chunk que aún no están en disco, o null si no hay. */
+    synchronized byte[] pendingData(int chunkX, int chunkY) {
+        PendingSave save = pending.get(chunkX, chunkY);
+        if (save == null) save = inFlight.get(chunkX, chunkY);
+        return (save != null) ? save.data() : null;
+    }
+
+    /** Vacía la cola y devuelve su contenido, que queda en vuelo hasta {@link #written}. */
+    synchronized List<PendingSave> drain() {
+        if (pending.isEmpty()) return List.of();
+        List<PendingSave> batch = new ArrayList<>(pending.values());
+        pending.clear();
+        for (PendingSave save : batch) {
+            inFlight.put(save.chunkX(), save.chunkY(), save);
+        }
+        return batch;
+    }
+
+    /** El guardado ya está en disco: las cargas pueden leerlo de la región. */
+    synchronized void written(PendingSave save) {
+        removeInFlight(save);
+    }
+
+    private void removeInFlight(PendingSave save) {
+        if (inFlight.get(save.chunkX(), save.chunkY()) == save) {
+            inFlight.remove(save.chunkX(), save.chunkY());
+        }
+    }
+
+    synchronized void recordBatch(int chunks, long payload, long disk) {
+        written += chunks;
+        batches++;
+        payloadBytes += payload;
+        diskBytes += disk;
+    }
+
+    synchronized SaveMetrics metrics() {
+        return new SaveMetrics(pending.size(), requested, written, batches, payloadBytes, diskBytes);
+    }
+}
@@ -0,0 +1,156 @@
+package juego.mundo;
+
+import componentes.GeneradorMundo;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pregeneración del mundo sin interfaz: genera un rectángulo de chunks en paralelo y lo guarda en
+ * {@code world/}, de modo que al jugar esos chunks se leen del disco en lugar de generarse.
+ *
+ * <p>Uso: {@code java juego.mundo.WorldPregenerator semilla minChunkX minChunkY maxChunkX maxChunkY}
+ * (límites inclusivos). No debe ejecutarse con el juego abierto sobre el mismo mundo. Los chunks
+ * que ya están guardados (editados en una partida) no se tocan, y un mundo guardado con otra
+ * semilla se rechaza sin escribir nada.</p>
+ *
+ * <p>El rectángulo se reparte en franjas de {@value #STRIP_WIDTH} columnas de chunks, una tarea por
+ * franja en un pool con un hilo por núcleo. Cada franja encola sus chunks en el
+ * {@link ChunkIOManager} y los libera, así que la memoria depende del número de hilos y no del
+ * tamaño del rectángulo. Los chunks se guardan completos, no como diferencias con el terreno
+ * generado, para que cargarlos no tenga que volver a generarlos. Al terminar muestra los chunks por
+ * segundo y el pico de memoria del heap.</p>
+ */
+public final class WorldPregenerator {
+    private static final int STRIP_WIDTH = 8;
+    // Límite de la cola de guardado: si los hilos generan más rápido de lo que se escribe, esperan
+    private static final int MAX_QUEUED = 4096;
+
+    private final ChunkIOManager io;
+    private final long seed;
+    private final int minChunkY;
+    private final int maxChunkY;
+    private final AtomicInteger generated = new AtomicInteger();
+    private final AtomicInteger skipped = new AtomicInteger();
+
+    private WorldPregenerator(ChunkIOManager io, long seed, int minChunkY, int maxChunkY) {
+        this.io = io;
+        this.seed = seed;
+        this.minChunkY = minChunkY;
+        this.maxChunkY = maxChunkY;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length != 5) {
+            System.err.println("Uso: java juego.mundo.WorldPregenerator semilla minChunkX minChunkY maxChunkX maxChunkY");
+            System.exit(2);
+        }
+        long seed = Long.parseLong(args[0]);
+        int minChunkX = Integer.parseInt(args[1]);
+        int minChunkY = Integer.parseInt(args[2]);
+        int maxChunkX = Integer.parseInt(args[3]);
+        int maxChunkY = Integer.parseInt(args[4]);
+        if (maxChunkX < minChunkX || maxChunkY < minChunkY) {
+            System.err.println("Rectángulo vacío");
+            System.exit(2);
+        }
+        int threads = Runtime.getRuntime().availableProcessors();
+        long total = (long) (maxChunkX - minChunkX + 1) * (maxChunkY - minChunkY + 1);
+        System.out.printf("Pregenerando %d chunks (%d,%d)..(%d,%d), semilla %d, %d hilos%n",
+                total, minChunkX, minChunkY, maxChunkX, maxChunkY, seed, threads);
+
+        ChunkIOManager io = new ChunkIOManager(seed, false);
+        // Los chunks completos de otra semilla se cargarían como editados: no mezclar terrenos
+        Long storedSeed;
+        try {
+            storedSeed = io.storedSeed();
+        } catch (RuntimeException e) {
+            System.err.println("[GEN] Error leyendo la semilla guardada: " + e.getMessage());
+            io.closeWithoutSaving();
+            System.exit(1);
+            return;
+        }
+        if (storedSeed != null && storedSeed != seed) {
+            System.err.println("[GEN] El mundo guardado usa la semilla " + storedSeed + ", no " + seed + ": no se toca");
+            io.closeWithoutSaving();
+            System.exit(2);
+        }
+        // Ediciones de una partida cortada: se reaplican antes de generar, y así esos chunks cuentan
+        // como guardados y no se pisan. Sin esto los checkpoints no descartan el diario
+        io.recoverJournal().join();
+        WorldPregenerator pregenerator = new WorldPregenerator(io, seed, minChunkY, maxChunkY);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long start = System.nanoTime();
+        List<Future<?>> strips = new ArrayList<>();
+        for (int x0 = minChunkX; x0 <= maxChunkX; x0 += STRIP_WIDTH) {
+            int stripMin = x0;
+            int stripMax = Math.min(maxChunkX, x0 + STRIP_WIDTH - 1);
+            strips.add(pool.submit(() -> pregenerator.generateStrip(stripMin, stripMax)));
+        }
+        boolean failed = false;
+        for (Future<?> strip : strips) {
+            try {
+                strip.get();
+            } catch (ExecutionException e) {
+                System.err.println("[GEN] Error en una franja: " + e.getCause());
+                failed = true;
+            }
+        }
+        pool.shutdown();
+        try {
+            io.saveWorld(null).join();
+        } catch (RuntimeException e) {
+            System.err.println("[GEN] Error guardando: " + e.getMessage());
+            failed = true;
+        }
+        failed |= !io.shutdown();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        int done = pregenerator.generated.get();
+        System.out.printf("Generados %d chunks (%d ya guardados, sin tocar) en %.2f s: %.0f chunks/s%n",
+                done, pregenerator.skipped.get(), seconds, done / seconds);
+        System.out.printf("Pico de memoria del heap: %d MB%n", peakHeapBytes() / (1024 * 1024));
+        System.exit(failed ? 1 : 0);
+    }
+
+    /** Genera y encola las columnas de chunks [minX..maxX] del rectángulo. */
+    private void generateStrip(int minX, int maxX) {
+        for (int cx = minX; cx <= maxX; cx++) {
+            for (int cy = minChunkY; cy <= maxChunkY; cy++) {
+                if (io.isStored(cx, cy)) {
+                    skipped.incrementAndGet();
+                    continue;
+                }
+                Chunk chunk = new Chunk(cx, cy);
+                try {
+                    GeneradorMundo.generarChunk(chunk, seed);
+                    io.saveChunk(chunk);
+                } finally {
+                    chunk.release();
+                }
+                generated.incrementAndGet();
+            }
+        }
+        if (io.getSaveMetrics().queueDepth() > MAX_QUEUED) {
+            io.flush();
+        }
+    }
+
+    private static long peakHeapBytes() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+}
@@ -3,16 +3,18 @@ package programa;
 import java.awt.*;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
-import java.io.File;
+import java.util.concurrent.CompletableFuture;
 import javax.swing.JFrame;
 import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
+import juego.mundo.ChunkIOManager;
 
 /**
  * Ventana principal del juego Mine2D.
  *
  * <p>Configura un menú principal con opciones de "Jugar", "Nuevo mundo" y "Salir". Al pulsar
- * "Jugar" se crea el {@link Panel} de juego y se inicia el loop; si existe el archivo world.wgz,
- * se carga la partida guardada. "Nuevo mundo" pregunta dimensiones (X e Y) y crea un mundo nuevo
+ * "Jugar" se crea el {@link Panel} de juego y se inicia el loop; si existe el directorio world/
+ * (o un world.wgz antiguo, que se importa), se carga la partida guardada. "Nuevo mundo" pregunta dimensiones (X e Y) y crea un mundo nuevo
  * sin cargar el guardado.</p>
  */
 public class Main extends JFrame {
@@ -32,6 +34,8 @@ public class Main extends JFrame {
     private MenuPanel menuPanel;
     private Panel gamePanel;
     private boolean gameStarted = false;
+    // Cierre del último mundo (corre fuera del hilo de Swing); no se vuelve a abrir world/ hasta que termine
+    private CompletableFuture<Void> worldClosed = CompletableFuture.completedFuture(null);
 
     /** Crea y configura la ventana de juego. */
     public Main() { init(); }
@@ -44,7 +48,8 @@ public class Main extends JFrame {
         Dimension screen = Toolkit.getDefaultToolkit().getScreenSize();
         setBounds(0, 0, screen.width, screen.height);
         setResizable(false);
-        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        // La salida espera a que se cierre el mundo (ver windowClosing)
+        setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
         // No centrar; ya forzado a (0,0) y tamaño completo
 
         // Contenedor con CardLayout: menú principal y juego
@@ -55,18 +60,17 @@ public class Main extends JFrame {
         menuPanel = new MenuPanel(new MenuPanel.Listener() {
             @Override
             public void onPlayRequested() {
-                startGame(true); // Cargar mundo existente
+                afterWorldClosed(() -> startGame(true)); // Cargar mundo existente
             }
             @Override
             public void onNewWorldRequested() {
-                // Borrar el mundo guardado para empezar de cero
-                File worldFile = new File("world.wgz");
-                if (worldFile.exists()) {
-                    if (!worldFile.delete()) {
+                afterWorldClosed(() -> {
+                    // Borrar el mundo guardado para empezar de cero
+                    if (!ChunkIOManager.deleteSavedWorld()) {
                         System.err.println("No se pudo borrar el mundo anterior.");
                     }
-                }
-                startGame(false); // Iniciar sin cargar
+                    startGame(false); // Iniciar sin cargar
+                });
             }
             @Override
             public void onExitRequested() {
@@ -90,8 +94,14 @@ public class Main extends JFrame {
             @Override
             public void windowClosing(WindowEvent e) {
                 if (gamePanel != null) {
-                    gamePanel.stop();
+                    worldClosed = gamePanel.stop();
                 }
+                setVisible(false);
+                worldClosed.whenComplete((ignored, ex) -> {
+                    if (ex != null) System.err.println("[SAVE] Error cerrando el mundo: " + ex.getMessage());
+                    dispose();
+                    System.exit(0);
+                });
             }
         });
     }
@@ -110,8 +120,9 @@ public class Main extends JFrame {
 
     private void startGame(boolean loadSaved) {
         if (!gameStarted) {
-            gamePanel = new Panel(() -> {
+            gamePanel = new Panel(closed -> {
                 // salida al menú desde pausa
+                worldClosed = closed;
                 root.remove(gamePanel);
                 gamePanel = null;
                 showMenu();
@@ -129,6 +140,11 @@ public class Main extends JFrame {
         }
     }
 
+    /** Ejecuta {@code action} en el hilo de Swing cuando el último mundo haya terminado de cerrarse. */
+    private void afterWorldClosed(Runnable action) {
+        worldClosed.whenComplete((ignored, ex) -> SwingUtilities.invokeLater(action));
+    }
+
     /** Punto de entrada de la aplicación. */
     public static void main(String[] args) {
         Main main = new Main();
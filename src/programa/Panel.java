@@ -6,9 +6,12 @@ import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import javax.swing.*;
 import juego.Jugador;
 import juego.bloques.BasicBlock;
+import juego.bloques.PlacedBlock;
 import juego.mundo.Chunk;
 import juego.mundo.ChunkIOManager;
 import juego.mundo.Mundo;
@@ -35,7 +38,7 @@ public class Panel extends JComponent {
     private Mundo mundo;
     private ChunkIOManager chunkIOManager;
     private volatile Lighting.LightGrid lightGrid;
-    private final List<BasicBlock> bloquesVisibles = new ArrayList<>();
+    private final List<PlacedBlock> bloquesVisibles = new ArrayList<>();
     private Camara camara;
     private HudDebug hud;
     private EditorMundo editorMundo; // editor
@@ -45,7 +48,8 @@ public class Panel extends JComponent {
     private final GameState gameState = new GameState();
 
     private PauseMenuPanel pauseMenu;
-    public interface Listener { void onExitToMenuRequested(); }
+    /** Recibe la salida al menú; {@code worldClosed} se completa cuando el mundo termina de cerrarse. */
+    public interface Listener { void onExitToMenuRequested(CompletableFuture<Void> worldClosed); }
     private final Listener listener;
 
     private volatile boolean vsyncEnabled = true; // limitar FPS (VSync simulado)
@@ -80,8 +84,12 @@ public class Panel extends JComponent {
         gameThread.start();
     }
 
-    /** Detiene el juego y libera recursos. */
-    public void stop(){
+    /**
+     * Detiene el juego y libera recursos. El cierre del mundo (guardar lo pendiente y cerrar los
+     * ficheros) puede tardar, así que corre en otro hilo.
+     * @return futuro que se completa cuando el mundo está cerrado
+     */
+    public CompletableFuture<Void> stop(){
         // Asegurar que no estamos en pausa para no bloquear hilos al detener
         resumeGame();
         if (loop != null) loop.detener();
@@ -90,13 +98,15 @@ public class Panel extends JComponent {
         }
         if (editorMundo != null) editorMundo.stop();
         if (inputController != null) inputController.uninstall();
-        if (mundo != null) mundo.close();
+        if (mundo == null) return CompletableFuture.completedFuture(null);
+        Mundo closing = mundo;
+        return CompletableFuture.runAsync(closing::close, runnable -> new Thread(runnable, "WorldCloseThread").start());
     }
 
     private void initGame(){
         long seed = 12345L; // Or load from metadata
         mundo = new Mundo(seed);
-        chunkIOManager = new ChunkIOManager();
+        chunkIOManager = mundo.getChunkIOManager();
 
         jugador = new Jugador();
         tipos.Punto spawnPoint = chunkIOManager.loadWorld(mundo);
@@ -105,11 +115,12 @@ public class Panel extends JComponent {
         double startX = 0;
 
         if (spawnPoint.x() == 0 && spawnPoint.y() == 0) {
-            // Mundo nuevo: precargar un área 5x5 de chunks para evitar mundo vacío
+            // Mundo nuevo: precargar un área 5x5 de chunks alrededor de la superficie para evitar mundo vacío
             int worldBlockX = (int)Math.floor(startX / BasicBlock.getSize());
-            int spawnChunkX = worldBlockX / Chunk.CHUNK_SIZE;
+            int spawnChunkX = Math.floorDiv(worldBlockX, Chunk.CHUNK_SIZE);
+            int spawnChunkY = Math.max(0, mundo.getSurfaceY(worldBlockX)) / Chunk.CHUNK_SIZE;
             for (int cx = spawnChunkX - 2; cx <= spawnChunkX + 2; cx++) {
-                for (int cy = 0; cy <= 4; cy++) { // cargar algunas alturas iniciales
+                for (int cy = Math.max(0, spawnChunkY - 2); cy <= spawnChunkY + 2; cy++) {
                     mundo.ensureChunkLoadedSync(cx, cy);
                 }
             }
@@ -147,35 +158,38 @@ public class Panel extends JComponent {
      * Si no hay bloques en esa columna, devuelve 0. */
     private double computeGroundSpawnY(double xPx) {
         int worldX = (int) Math.floor(xPx / BasicBlock.getSize());
-        int chunkX = worldX / Chunk.CHUNK_SIZE;
-        int blockXInChunk = worldX % Chunk.CHUNK_SIZE;
-
-        // Buscar desde arriba (worldHeight-1) hacia abajo (0) en términos lógicos
-        final int worldHeight = 256; // debe coincidir con GeneradorMundo
-
-        for (int logicalY = worldHeight - 1; logicalY >= 0; logicalY--) {
-            int chunkY = logicalY / Chunk.CHUNK_SIZE;
-            int blockYInChunk = logicalY % Chunk.CHUNK_SIZE;
-            Chunk chunk = mundo.getChunk(chunkX, chunkY);
-            if (chunk == null) continue;
-            if (chunk.getBlock(blockXInChunk, blockYInChunk) != null) {
-                // Convertir altura lógica (desde el fondo) a Y de pantalla usando misma fórmula que GeneradorMundo
-                double screenY = (worldHeight - 1 - logicalY) * BasicBlock.getSize();
-                return screenY;
-            }
-        }
-        return 0; // fallback
+        // Altura de la superficie (Y lógica desde el fondo) según el mapa de alturas, sin recorrer la columna
+        int logicalY = mundo.getSurfaceY(worldX);
+        if (logicalY < 0) return 0; // fallback
+        // Convertir altura lógica (desde el fondo) a Y de pantalla usando misma fórmula que GeneradorMundo
+        return (Mundo.WORLD_HEIGHT_BLOCKS - 1 - logicalY) * BasicBlock.getSize();
     }
 
-    /** Guardar estado del mundo a archivo. */
-    private void saveWorld() {
-        if (mundo != null && chunkIOManager != null) {
-            chunkIOManager.saveWorld(mundo, jugador.getPosicion());
-            System.out.println("[INFO] Mundo guardado.");
+    /**
+     * Guarda el mundo en segundo plano, mostrando el avance en el menú de pausa, y al terminar
+     * ejecuta {@code onDone} en el hilo de Swing. Si falla, se queda en el menú de pausa con el error.
+     */
+    private void saveWorld(Runnable onDone) {
+        if (mundo == null || chunkIOManager == null) {
+            onDone.run();
+            return;
         }
+        pauseMenu.showSaveProgress(0, 0);
+        chunkIOManager.saveWorld(mundo, jugador.getPosicion(),
+                        (saved, total) -> SwingUtilities.invokeLater(() -> pauseMenu.showSaveProgress(saved, total)))
+                .whenComplete((ignored, ex) -> SwingUtilities.invokeLater(() -> {
+                    if (ex != null) {
+                        Throwable cause = (ex instanceof CompletionException && ex.getCause() != null) ? ex.getCause() : ex;
+                        System.err.println("[SAVE] Error guardando mundo: " + cause.getMessage());
+                        pauseMenu.showSaveFailed(cause.getMessage());
+                        return;
+                    }
+                    System.out.println("[INFO] Mundo guardado.");
+                    onDone.run();
+                }));
     }
 
-    /** Carga la partida guardada si existe (world.wgz) sin mensajes de depuración excesivos. */
+    /** Carga la partida guardada si existe (directorio world/) sin mensajes de depuración excesivos. */
     public void cargarPartidaGuardada() {
         // This is now handled in initGame()
     }
@@ -205,7 +219,7 @@ public class Panel extends JComponent {
         setLayout(null);
         pauseMenu = new PauseMenuPanel(new PauseMenuPanel.Listener() {
             @Override public void onResume() { resumeGame(); }
-            @Override public void onSave() { saveWorld(); }
+            @Override public void onSave() { saveWorld(Panel.this::exitToMenu); }
             @Override public void onExit() { exitToMenu(); }
             @Override public void onToggleVSync(boolean enabled) { setVsyncEnabled(enabled); }
         });
@@ -235,7 +249,7 @@ public class Panel extends JComponent {
     private void togglePause() { if (gameState.isPaused()) resumeGame(); else pauseGame(); }
     public void pauseGame() { gameState.pause(); if(pauseMenu!=null){ pauseMenu.setVisible(true); pauseMenu.requestFocusInWindow(); } }
     public void resumeGame() { gameState.resume(); if(pauseMenu!=null){ pauseMenu.setVisible(false); requestFocusInWindow(); } }
-    private void exitToMenu() { stop(); if (listener != null) listener.onExitToMenuRequested(); }
+    private void exitToMenu() { CompletableFuture<Void> closed = stop(); if (listener != null) listener.onExitToMenuRequested(closed); }
     @Override public void doLayout() { super.doLayout(); centerPauseMenu(); }
 
     // Getters
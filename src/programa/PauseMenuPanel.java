@@ -15,6 +15,10 @@ public class PauseMenuPanel extends JPanel {
         void onToggleVSync(boolean enabled);
     }
 
+    private final JButton resume;
+    private final JButton save;
+    private final JLabel status;
+
     public PauseMenuPanel(Listener listener) {
         setOpaque(false); // transparente, dibujaremos fondo semi-transparente en paintComponent
         setLayout(new GridBagLayout());
@@ -26,18 +30,18 @@ public class PauseMenuPanel extends JPanel {
         title.setFont(title.getFont().deriveFont(Font.BOLD, 42f));
         title.setForeground(Color.WHITE);
 
-        JButton resume = new JButton("Reanudar");
+        resume = new JButton("Reanudar");
         resume.setFont(resume.getFont().deriveFont(Font.BOLD, 20f));
         resume.addActionListener(e -> { if (listener != null) listener.onResume(); });
 
-        JButton save = new JButton("Guardar y salir");
+        save = new JButton("Guardar y salir");
         save.setFont(save.getFont().deriveFont(Font.PLAIN, 18f));
-        save.addActionListener(e -> {
-            if (listener != null) {
-                listener.onSave();
-                listener.onExit();
-            }
-        });
+        // El guardado es asíncrono: el listener sale cuando termina (ver showSaveProgress)
+        save.addActionListener(e -> { if (listener != null) listener.onSave(); });
+
+        // Solo muestra algo si falla un guardado
+        status = new JLabel(" ", SwingConstants.CENTER);
+        status.setForeground(new Color(255, 110, 110));
 
         JCheckBox vsync = new JCheckBox("Limitar a VSync");
         vsync.setOpaque(false);
@@ -48,6 +52,7 @@ public class PauseMenuPanel extends JPanel {
         box.add(title);
         box.add(resume);
         box.add(save);
+        box.add(status);
         box.add(vsync);
 
         GridBagConstraints gbc = new GridBagConstraints();
@@ -55,6 +60,28 @@ public class PauseMenuPanel extends JPanel {
         add(box, gbc);
     }
 
+    /**
+     * Muestra el avance de un guardado en curso y desactiva los botones hasta que termine.
+     * Debe llamarse desde el hilo de Swing.
+     */
+    public void showSaveProgress(int savedChunks, int totalChunks) {
+        resume.setEnabled(false);
+        save.setEnabled(false);
+        save.setText((totalChunks > 0) ? "Guardando... " + savedChunks + "/" + totalChunks : "Guardando...");
+        status.setText(" ");
+    }
+
+    /**
+     * Termina un guardado fallido: vuelve a activar los botones para reintentar o seguir jugando
+     * y muestra el error. Debe llamarse desde el hilo de Swing.
+     */
+    public void showSaveFailed(String message) {
+        resume.setEnabled(true);
+        save.setEnabled(true);
+        save.setText("Guardar y salir");
+        status.setText("Error al guardar: " + message);
+    }
+
     @Override
     protected void paintComponent(Graphics g) {
         // Fondo semi-transparente para oscurecer el juego